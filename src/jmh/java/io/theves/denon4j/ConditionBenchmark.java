@@ -0,0 +1,86 @@
+/*
+ * Copyright 2017 Sascha Theves
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ * Modifications Copyright 2020 Codersparks
+ */
+
+
+
+package io.theves.denon4j;
+
+import io.theves.denon4j.net.Event;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Receives a 9 line NSE response into a request waiting for <code>allMatch(regex, size(9))</code>, comparing the
+ * former conditions that matched every received event again after each event with the precompiled incremental
+ * ones. <code>NSE.*</code> is compared as byte prefix, <code>NSE\d.*</code> needs the regex.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConditionBenchmark {
+
+    @Param({"NSE.*", "NSE\\d.*"})
+    public String regex;
+
+    private Event[] response;
+    private Condition rescanning;
+    private Condition incremental;
+
+    @Setup
+    public void setup() {
+        response = new Event[9];
+        for (int i = 0; i < response.length; i++) {
+            response[i] = Event.create(("NSE" + i + "Come Away With Me - Norah Jones").getBytes(UTF_8));
+        }
+        // as the conditions were implemented before
+        Condition regexCondition = ctx -> ctx.received().stream().anyMatch(e -> e.asciiValue().matches(regex));
+        Condition sizeCondition = ctx -> ctx.received().size() >= 9;
+        rescanning = ctx -> Stream.of(regexCondition, sizeCondition).allMatch(c -> c.fulfilled(ctx));
+        incremental = Condition.allMatch(Condition.regex(regex), Condition.size(9));
+    }
+
+    @Benchmark
+    public boolean rescanning() {
+        return receive(rescanning);
+    }
+
+    @Benchmark
+    public boolean incremental() {
+        return receive(incremental);
+    }
+
+    private boolean receive(Condition condition) {
+        RecvContext ctx = new RecvContext(condition);
+        boolean fulfilled = ctx.fulfilled();
+        for (Event event : response) {
+            fulfilled = ctx.add(event);
+        }
+        return fulfilled;
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2017 Sascha Theves
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ * Modifications Copyright 2020 Codersparks
+ */
+
+
+
+package io.theves.denon4j;
+
+import io.theves.denon4j.net.Event;
+import io.theves.denon4j.net.EventListener;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Compares broadcasting every event to all listeners, each checking its own prefix as the controls did, with
+ * the {@link ListenerIndex}. The receiver's control prefixes are registered first, the remaining listeners use
+ * distinct two to four letter prefixes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark {
+    private static final String[] CONTROL_PREFIXES = {
+        "PW", "MV", "CV", "CV", "CV", "CV", "CV", "CV", "CV", "CV", "CV", "CV", "CV", "MU", "SI", "SV", "ZM", "NS",
+        "MN", "MS", "SLP", "TFAN", "TPAN", "TMAN"};
+    private static final String[] TRAFFIC = {
+        "MV455", "MVMAX 98", "PWON", "CVFL 50", "SLP030", "TFAN105000", "NSE1Come Away With Me", "MUOFF", "SICD"};
+
+    @Param({"30", "1000"})
+    public int listeners;
+
+    private byte[][] prefixes;
+    private EventListener[] broadcast;
+    private ListenerIndex index;
+    private Event[] events;
+    private long handled;
+
+    @Setup
+    public void setup() {
+        prefixes = new byte[listeners][];
+        broadcast = new EventListener[listeners];
+        index = new ListenerIndex();
+        for (int i = 0; i < listeners; i++) {
+            String prefix = i < CONTROL_PREFIXES.length ? CONTROL_PREFIXES[i] : syntheticPrefix(i);
+            prefixes[i] = prefix.getBytes(US_ASCII);
+            broadcast[i] = event -> handled++;
+            index.add(prefix, broadcast[i]);
+        }
+        events = new Event[TRAFFIC.length];
+        for (int i = 0; i < TRAFFIC.length; i++) {
+            events[i] = Event.create(TRAFFIC[i].getBytes(US_ASCII));
+        }
+    }
+
+    private static String syntheticPrefix(int i) {
+        // lower case letters and digits never collide with the receiver's prefixes
+        String chars = "abcdefghijklmnopqrstuvwxyz0123456789";
+        StringBuilder prefix = new StringBuilder();
+        prefix.append(chars.charAt(i % 26)).append(chars.charAt((i / 26) % chars.length()));
+        for (int rest = i / (26 * chars.length()); rest > 0; rest /= chars.length()) {
+            prefix.append(chars.charAt(rest % chars.length()));
+        }
+        return prefix.toString();
+    }
+
+    @Benchmark
+    public void broadcast(Blackhole bh) {
+        for (Event event : events) {
+            for (int i = 0; i < broadcast.length; i++) {
+                if (event.startsWith(prefixes[i])) {
+                    broadcast[i].received(event);
+                }
+            }
+        }
+        bh.consume(handled);
+    }
+
+    @Benchmark
+    public void indexed(Blackhole bh) {
+        for (Event event : events) {
+            index.dispatch(event);
+        }
+        bh.consume(handled);
+    }
+}
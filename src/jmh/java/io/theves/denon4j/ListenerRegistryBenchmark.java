@@ -0,0 +1,124 @@
+/*
+ * Copyright 2017 Sascha Theves
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ * Modifications Copyright 2020 Codersparks
+ */
+
+
+
+package io.theves.denon4j;
+
+import io.theves.denon4j.net.Event;
+import io.theves.denon4j.net.EventListener;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Streams events to the receiver's controls and a slow user listener while another thread keeps adding and
+ * removing a listener. Compares the former synchronized list, whose monitor was held while notifying, with the
+ * copy on write {@link ListenerIndex}.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListenerRegistryBenchmark {
+    private static final String[] PREFIXES = {
+        "PW", "MV", "CV", "CV", "CV", "CV", "CV", "CV", "CV", "CV", "CV", "CV", "CV", "MU", "SI", "SV", "ZM", "NS",
+        "MN", "MS", "SLP", "TFAN", "TPAN", "TMAN"};
+    private static final String[] TRAFFIC = {"MV455", "MVMAX 98", "PWON", "CVFL 50", "SLP030", "MUOFF", "SICD"};
+
+    @Param({"100"})
+    public int slowListenerTokens;
+
+    private List<EventListener> synchronizedList;
+    private ListenerIndex index;
+    private Event[] events;
+    private EventListener churn;
+
+    @Setup
+    public void setup() {
+        synchronizedList = Collections.synchronizedList(new ArrayList<>());
+        index = new ListenerIndex();
+        for (String prefix : PREFIXES) {
+            byte[] bytes = prefix.getBytes(US_ASCII);
+            // like the controls: filter on their own when broadcast to
+            synchronizedList.add(event -> {
+                if (event.startsWith(bytes)) {
+                    Blackhole.consumeCPU(10);
+                }
+            });
+            index.add(prefix, event -> Blackhole.consumeCPU(10));
+        }
+        EventListener slow = event -> Blackhole.consumeCPU(slowListenerTokens);
+        synchronizedList.add(slow);
+        index.add(null, slow);
+        churn = event -> Blackhole.consumeCPU(1);
+        events = new Event[TRAFFIC.length];
+        for (int i = 0; i < TRAFFIC.length; i++) {
+            events[i] = Event.create(TRAFFIC[i].getBytes(US_ASCII));
+        }
+    }
+
+    @Benchmark
+    @Group("synchronizedList")
+    @GroupThreads(1)
+    public void synchronizedListDispatch() {
+        for (Event event : events) {
+            synchronized (synchronizedList) {
+                for (EventListener listener : synchronizedList) {
+                    listener.received(event);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    @Group("synchronizedList")
+    @GroupThreads(1)
+    public void synchronizedListChurn() {
+        synchronizedList.add(churn);
+        synchronizedList.remove(churn);
+    }
+
+    @Benchmark
+    @Group("index")
+    @GroupThreads(1)
+    public void indexDispatch() {
+        for (Event event : events) {
+            index.dispatch(event);
+        }
+    }
+
+    @Benchmark
+    @Group("index")
+    @GroupThreads(1)
+    public void indexChurn() {
+        index.add("MV", churn).remove();
+    }
+}
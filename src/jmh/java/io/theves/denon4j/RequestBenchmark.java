@@ -0,0 +1,132 @@
+/*
+ * Copyright 2017 Sascha Theves
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ * Modifications Copyright 2020 Codersparks
+ */
+
+
+
+package io.theves.denon4j;
+
+import io.theves.denon4j.net.Command;
+import io.theves.denon4j.net.Event;
+import io.theves.denon4j.net.EventDispatcher;
+import io.theves.denon4j.net.Protocol;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Measures the latency of requests from concurrent callers through the request/response correlation. The
+ * receiver is replaced by a loopback whose reader thread answers every command with a <code>NSE</code> line,
+ * which is not captured, and the two events of the volume response. Run it with <code>-bm sample</code> for the
+ * latency distribution.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class RequestBenchmark {
+    private static final Command STOP = Command.createCommand("STOP");
+
+    @Param({"1", "8"})
+    public int maxInFlight;
+
+    private Loopback loopback;
+    private DenonReceiver receiver;
+
+    @Setup
+    public void setup() {
+        loopback = new Loopback();
+        receiver = new DenonReceiver(loopback);
+        receiver.enablePipelining(maxInFlight);
+        loopback.start();
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        loopback.stop();
+    }
+
+    @Benchmark
+    public List<Event> request() {
+        return receiver.send("MV?", Condition.size(2), "MV");
+    }
+
+    private static final class Loopback implements Protocol {
+        private final BlockingQueue<Command> commands = new LinkedBlockingQueue<>();
+        private final Thread reader = new Thread(this::read, "Loopback");
+        private EventDispatcher dispatcher;
+
+        void start() {
+            reader.start();
+        }
+
+        void stop() throws InterruptedException {
+            commands.add(STOP);
+            reader.join();
+        }
+
+        private void read() {
+            byte[] screen = "NSE1Come Away With Me".getBytes(US_ASCII);
+            byte[] max = "MVMAX 98".getBytes(US_ASCII);
+            byte[] volume = "MV455".getBytes(US_ASCII);
+            try {
+                for (Command command = commands.take(); command != STOP; command = commands.take()) {
+                    dispatcher.dispatch(Event.create(screen));
+                    dispatcher.dispatch(Event.create(max));
+                    dispatcher.dispatch(Event.create(volume));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void send(Command command) {
+            commands.add(command);
+        }
+
+        @Override
+        public void setDispatcher(EventDispatcher eventDispatcher) {
+            this.dispatcher = eventDispatcher;
+        }
+
+        @Override
+        public void establishConnection(int timeout) {
+        }
+
+        @Override
+        public void disconnect() {
+        }
+
+        @Override
+        public boolean isConnected() {
+            return true;
+        }
+    }
+}
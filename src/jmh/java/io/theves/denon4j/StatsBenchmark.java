@@ -0,0 +1,81 @@
+/*
+ * Copyright 2017 Sascha Theves
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ * Modifications Copyright 2020 Codersparks
+ */
+
+
+
+package io.theves.denon4j;
+
+import io.theves.denon4j.net.Command;
+import io.theves.denon4j.net.Event;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Measures counting an event and a command while the metrics are read, and taking a snapshot of a session that
+ * has seen the receiver's usual prefixes. Sampling 200 receivers every second takes 200 snapshots.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatsBenchmark {
+    private static final String[] PREFIXES = {"PW", "MV", "CV", "MU", "SI", "SV", "ZM", "MS", "SL", "TF", "TP", "TM",
+        "NS"};
+
+    private Stats stats;
+    private Event event;
+    private Command command;
+
+    @Setup
+    public void setup() {
+        stats = new Stats();
+        for (String prefix : PREFIXES) {
+            stats.received(Event.create((prefix + "ON").getBytes(US_ASCII)));
+            RecvContext ctx = new RecvContext(Command.createCommand(prefix + "?"), Condition.size(0), null);
+            ctx.complete();
+            stats.response(ctx);
+        }
+        event = Event.create("MV455".getBytes(US_ASCII));
+        command = Command.createCommand("MVUP");
+    }
+
+    @Benchmark
+    @Group("sampled")
+    @GroupThreads(3)
+    public void count() {
+        stats.received(event);
+        stats.sent(command);
+    }
+
+    @Benchmark
+    @Group("sampled")
+    public Map<String, Stats.PrefixStats> snapshot() {
+        stats.latency();
+        return stats.prefixes();
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2017 Sascha Theves
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ * Modifications Copyright 2020 Codersparks
+ */
+
+
+package io.theves.denon4j.bench;
+
+import io.theves.denon4j.DenonReceiver;
+import io.theves.denon4j.net.ExecutionMode;
+import io.theves.denon4j.net.NioTransport;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Connects many simulated receivers with the thread per connection {@code Tcp} transport on platform or
+ * virtual threads, or with the shared {@link NioTransport}, and reports thread count, resident memory and
+ * event latency.
+ * <p>
+ * Usage: {@code FleetBenchmark [tcp|virtual|nio] [receivers] [rounds]}, {@code virtual} requires Java 21.
+ */
+public class FleetBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        String mode = args.length > 0 ? args[0] : "nio";
+        int receivers = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        new FleetBenchmark().run(mode, receivers, rounds);
+    }
+
+    private void run(String mode, int count, int rounds) throws Exception {
+        boolean nio = "nio".equals(mode);
+        int threadsBefore = threadCount();
+        long rssBefore = residentKb();
+        try (ReceiverSimulator simulator = new ReceiverSimulator();
+             NioTransport transport = nio ? NioTransport.create() : null) {
+
+            List<DenonReceiver> fleet = new ArrayList<>(count);
+            LatencySamples latency = new LatencySamples(count * rounds);
+            // read by the I/O threads of all receivers
+            AtomicLong sentAt = new AtomicLong();
+            AtomicReference<CountDownLatch> round = new AtomicReference<>();
+            for (int i = 0; i < count; i++) {
+                DenonReceiver receiver = createReceiver(mode, simulator.port(), transport);
+                receiver.addListener(event -> {
+                    if (event.asciiValue().startsWith("MSBENCH")) {
+                        latency.add(System.nanoTime() - sentAt.get());
+                        round.get().countDown();
+                    }
+                });
+                receiver.connect(5000);
+                fleet.add(receiver);
+            }
+            while (simulator.clients() < count) {
+                Thread.sleep(10);
+            }
+
+            for (int r = 0; r < rounds; r++) {
+                CountDownLatch latch = new CountDownLatch(count);
+                round.set(latch);
+                sentAt.set(System.nanoTime());
+                simulator.broadcast("MSBENCH" + r);
+                if (!latch.await(10, TimeUnit.SECONDS)) {
+                    System.err.println("Round " + r + " incomplete: " + latch.getCount() + " missing");
+                }
+            }
+
+            System.gc();
+            int threadsAfter = threadCount();
+            long rssAfter = residentKb();
+            System.out.printf("Transport:  %s (%d receivers, %d rounds)%n", mode, count, rounds);
+            System.out.printf("Threads:    %d -> %d (+%d)%n", threadsBefore, threadsAfter, threadsAfter - threadsBefore);
+            System.out.printf("RSS:        %d kB -> %d kB (+%d kB)%n", rssBefore, rssAfter, rssAfter - rssBefore);
+            System.out.printf("Latency:    %s%n", latency.summary());
+
+            fleet.forEach(DenonReceiver::disconnect);
+        }
+    }
+
+    private static DenonReceiver createReceiver(String mode, int port, NioTransport transport) {
+        switch (mode) {
+            case "nio":
+                return new DenonReceiver("127.0.0.1", port, transport);
+            case "virtual":
+                return new DenonReceiver("127.0.0.1", port, ExecutionMode.VIRTUAL);
+            case "tcp":
+                return new DenonReceiver("127.0.0.1", port, ExecutionMode.PLATFORM);
+            default:
+                throw new IllegalArgumentException("Unknown mode: " + mode);
+        }
+    }
+
+    static int threadCount() {
+        return ManagementFactory.getThreadMXBean().getThreadCount();
+    }
+
+    static long residentKb() throws IOException {
+        Path status = Paths.get("/proc/self/status");
+        if (Files.exists(status)) {
+            for (String line : Files.readAllLines(status)) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("\\D", ""));
+                }
+            }
+        }
+        Runtime rt = Runtime.getRuntime();
+        return (rt.totalMemory() - rt.freeMemory()) / 1024;
+    }
+}
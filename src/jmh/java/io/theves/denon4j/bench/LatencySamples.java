@@ -0,0 +1,63 @@
+/*
+ * Copyright 2017 Sascha Theves
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ * Modifications Copyright 2020 Codersparks
+ */
+
+
+package io.theves.denon4j.bench;
+
+import java.util.Arrays;
+
+/**
+ * Collects latency samples in nanoseconds and reports percentiles.
+ */
+final class LatencySamples {
+    private final long[] samples;
+    private int size;
+
+    LatencySamples(int capacity) {
+        this.samples = new long[capacity];
+    }
+
+    synchronized void add(long nanos) {
+        if (size < samples.length) {
+            samples[size++] = nanos;
+        }
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    synchronized String summary() {
+        if (size == 0) {
+            return "no samples";
+        }
+        long[] sorted = Arrays.copyOf(samples, size);
+        Arrays.sort(sorted);
+        return String.format("n=%d p50=%.1fus p99=%.1fus p999=%.1fus max=%.1fus",
+            size, micros(sorted, 0.5), micros(sorted, 0.99), micros(sorted, 0.999), sorted[size - 1] / 1000.0);
+    }
+
+    private static double micros(long[] sorted, double percentile) {
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1000.0;
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2017 Sascha Theves
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ * Modifications Copyright 2020 Codersparks
+ */
+
+
+package io.theves.denon4j.bench;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * In-process AVR simulator that speaks enough of the Denon protocol for benchmarks.
+ * Serves any number of connections from a single selector thread.
+ */
+public final class ReceiverSimulator implements AutoCloseable {
+    private static final Logger logger = Logger.getLogger(ReceiverSimulator.class.getName());
+    private static final char PAUSE = '\r';
+    private static final List<String> PREFIXES = Arrays.asList(
+        "SLP", "TFAN", "TPAN", "TMAN", "PW", "MV", "CV", "MU", "SI", "SV", "ZM", "NS", "MN", "MS");
+    private static final List<String> CHANNELS = Arrays.asList(
+        "FL", "FR", "C", "SW", "SL", "SR", "SBL", "SBR", "SB", "FHL", "FHR");
+
+    private final ServerSocketChannel server;
+    private final Selector selector;
+    private final Thread thread;
+    private final Map<String, String> state = new ConcurrentHashMap<>();
+    private final Set<SocketChannel> clients = ConcurrentHashMap.newKeySet();
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(8192);
+    private volatile boolean running = true;
+
+    public ReceiverSimulator() throws IOException {
+        state.put("PW", "ON");
+        state.put("MV", "45");
+        state.put("MU", "OFF");
+        state.put("SI", "CD");
+        state.put("SV", "DVD");
+        state.put("ZM", "ON");
+        state.put("MS", "STEREO");
+        state.put("SLP", "OFF");
+        state.put("TFAN", "105000");
+        state.put("TPAN", "01");
+        state.put("TMAN", "AUTO");
+        CHANNELS.forEach(ch -> state.put("CV" + ch, "50"));
+
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress("127.0.0.1", 0), 4096);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+        thread = new Thread(this::run, "ReceiverSimulator");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public int port() {
+        return server.socket().getLocalPort();
+    }
+
+    public int clients() {
+        return clients.size();
+    }
+
+    /**
+     * Pushes an unsolicited event to every connected client.
+     *
+     * @param event the event without trailing delimiter.
+     */
+    public void broadcast(String event) {
+        tasks.add(() -> clients.forEach(ch -> write(ch, event)));
+        selector.wakeup();
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                selector.select();
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    task.run();
+                }
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    if (key.isValid() && key.isAcceptable()) {
+                        accept();
+                    } else if (key.isValid() && key.isReadable()) {
+                        read(key);
+                    }
+                }
+            } catch (IOException e) {
+                if (running) {
+                    logger.log(Level.WARNING, "Simulator I/O failed", e);
+                }
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel ch;
+        while ((ch = server.accept()) != null) {
+            ch.configureBlocking(false);
+            ch.register(selector, SelectionKey.OP_READ, new StringBuilder());
+            clients.add(ch);
+        }
+    }
+
+    private void read(SelectionKey key) {
+        SocketChannel ch = (SocketChannel) key.channel();
+        StringBuilder pending = (StringBuilder) key.attachment();
+        try {
+            readBuffer.clear();
+            if (ch.read(readBuffer) == -1) {
+                drop(ch);
+                return;
+            }
+            readBuffer.flip();
+            pending.append(US_ASCII.decode(readBuffer));
+            int end;
+            while ((end = pending.indexOf(String.valueOf(PAUSE))) >= 0) {
+                String command = pending.substring(0, end);
+                pending.delete(0, end + 1);
+                respond(ch, command);
+            }
+        } catch (IOException e) {
+            drop(ch);
+        }
+    }
+
+    private void respond(SocketChannel ch, String command) {
+        String prefix = PREFIXES.stream().filter(command::startsWith).findFirst().orElse(null);
+        if (prefix == null) {
+            return;
+        }
+        String param = command.substring(prefix.length());
+        if ("NS".equals(prefix) && ("E".equals(param) || "A".equals(param))) {
+            for (int i = 0; i < 9; i++) {
+                write(ch, "NS" + param + i + "Line " + i);
+            }
+        } else if ("CV".equals(prefix) && "?".equals(param)) {
+            CHANNELS.forEach(c -> write(ch, "CV" + c + " " + state.get("CV" + c)));
+        } else if ("?".equals(param)) {
+            write(ch, prefix + state.getOrDefault(prefix, ""));
+        } else if ("MV".equals(prefix) && ("UP".equals(param) || "DOWN".equals(param))) {
+            int vol = Integer.parseInt(state.get("MV").substring(0, 2)) + ("UP".equals(param) ? 1 : -1);
+            state.put("MV", String.format("%02d", Math.max(0, Math.min(98, vol))));
+            write(ch, "MV" + state.get("MV"));
+            write(ch, "MVMAX 98");
+        } else if ("NS".equals(prefix) || "MN".equals(prefix)) {
+            // key presses without response
+        } else {
+            state.put(prefix, param);
+            write(ch, prefix + param);
+        }
+    }
+
+    private void write(SocketChannel ch, String event) {
+        ByteBuffer buffer = ByteBuffer.wrap((event + PAUSE).getBytes(US_ASCII));
+        try {
+            while (buffer.hasRemaining()) {
+                ch.write(buffer);
+            }
+        } catch (IOException e) {
+            drop(ch);
+        }
+    }
+
+    private void drop(SocketChannel ch) {
+        clients.remove(ch);
+        try {
+            ch.close();
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        selector.wakeup();
+        clients.forEach(this::drop);
+        server.close();
+    }
+}
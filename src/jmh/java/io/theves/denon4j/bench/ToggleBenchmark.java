@@ -0,0 +1,94 @@
+/*
+ * Copyright 2017 Sascha Theves
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ * Modifications Copyright 2020 Codersparks
+ */
+
+
+
+package io.theves.denon4j.bench;
+
+import io.theves.denon4j.DenonReceiver;
+import io.theves.denon4j.controls.Toggle;
+
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the end-to-end latency of {@link Toggle#toggle()} against a simulated receiver, from the call until the
+ * receiver reports the new state. In {@code cached} mode the toggle decides from the {@code ReceiverState}, in
+ * {@code query} mode the cache is disabled so it queries the receiver first.
+ * <p>
+ * Usage: {@code ToggleBenchmark [cached|query] [toggles] [command interval ms]}
+ */
+public class ToggleBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        String mode = args.length > 0 ? args[0] : "cached";
+        int toggles = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        long interval = args.length > 2 ? Long.parseLong(args[2]) : 50;
+        if (!"cached".equals(mode) && !"query".equals(mode)) {
+            throw new IllegalArgumentException("Unknown mode: " + mode);
+        }
+
+        try (ReceiverSimulator simulator = new ReceiverSimulator()) {
+            DenonReceiver receiver = new DenonReceiver("127.0.0.1", simulator.port());
+            BlockingQueue<String> states = new LinkedBlockingQueue<>();
+            receiver.addListener(event -> {
+                if (event.startsWith("MU")) {
+                    states.add(event.asciiValue().substring(2));
+                }
+            });
+            receiver.connect(5000);
+            receiver.setCommandInterval(Duration.ofMillis(interval));
+            if ("cached".equals(mode)) {
+                receiver.state().setMaxAge(Duration.ofMinutes(1));
+            }
+            Toggle mute = receiver.mute();
+            // learn the initial state
+            String current = mute.state();
+
+            LatencySamples latency = new LatencySamples(toggles);
+            for (int i = 0; i < toggles; i++) {
+                states.clear();
+                String expected = "ON".equals(current) ? "OFF" : "ON";
+                long start = System.nanoTime();
+                mute.toggle();
+                String state;
+                do {
+                    state = states.poll(10, TimeUnit.SECONDS);
+                } while (state != null && !state.equals(expected));
+                if (state == null) {
+                    System.err.println("Toggle " + i + " not confirmed");
+                    current = mute.state();
+                    continue;
+                }
+                latency.add(System.nanoTime() - start);
+                current = state;
+            }
+
+            System.out.printf("Mode:       %s (%d toggles, %d ms command interval)%n", mode, toggles, interval);
+            System.out.printf("Latency:    %s%n", latency.summary());
+            System.out.printf("Outbound:   %s%n", receiver.outboundStats());
+            receiver.disconnect();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2017 Sascha Theves
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ * Modifications Copyright 2020 Codersparks
+ */
+
+
+
+package io.theves.denon4j.events;
+
+import io.theves.denon4j.controls.InputSource;
+import io.theves.denon4j.controls.SurroundMode;
+import io.theves.denon4j.net.Event;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Decodes recorded receiver traffic, a power on, volume ramp, channel levels, input and surround changes and a
+ * net screen, with the {@link EventDecoder} and, for comparison, with regex and substring as the controls read
+ * their values. Events are created from the raw bytes per operation, as the reader does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventDecoderBenchmark {
+    private static final Pattern MASTER = Pattern.compile("MV(\\d\\d\\d?)");
+    private static final Pattern MAX = Pattern.compile("MVMAX (\\d\\d\\d?)");
+    private static final Pattern CHANNEL = Pattern.compile("CV([A-Z]+) (\\d\\d\\d?)");
+    private static final Pattern SLEEP = Pattern.compile("SLP(\\d\\d\\d)");
+
+    // @OperationsPerInvocation is the number of lines in traffic.txt
+    private byte[][] traffic;
+
+    @Setup
+    public void setup() throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+            EventDecoderBenchmark.class.getResourceAsStream("traffic.txt"), US_ASCII))) {
+            traffic = reader.lines().map(line -> line.getBytes(US_ASCII)).toArray(byte[][]::new);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(65)
+    public void decoder(Blackhole bh) {
+        for (byte[] bytes : traffic) {
+            bh.consume(EventDecoder.decode(Event.create(bytes)));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(65)
+    public void regex(Blackhole bh) {
+        for (byte[] bytes : traffic) {
+            bh.consume(parse(Event.create(bytes).asciiValue()));
+        }
+    }
+
+    private static Object parse(String value) {
+        Matcher m;
+        if (value.startsWith("PW") || value.startsWith("MU")) {
+            return value.substring(2).equals("ON");
+        }
+        if (value.startsWith("MV")) {
+            if (value.contains("MAX")) {
+                return (m = MAX.matcher(value)).matches() ? Integer.parseInt(m.group(1)) : null;
+            }
+            return (m = MASTER.matcher(value)).matches() ? Integer.parseInt(m.group(1)) : null;
+        }
+        if (value.startsWith("CV")) {
+            return (m = CHANNEL.matcher(value)).matches() ? m.group(1) + Integer.parseInt(m.group(2)) : null;
+        }
+        if (value.startsWith("SI")) {
+            String source = value.substring(2);
+            for (InputSource s : InputSource.values()) {
+                if (s.getInputSource().equals(source)) {
+                    return s;
+                }
+            }
+            return null;
+        }
+        if (value.startsWith("MS")) {
+            String mode = value.substring(2);
+            for (SurroundMode s : SurroundMode.values()) {
+                if (s.getMode().equals(mode)) {
+                    return s;
+                }
+            }
+            return null;
+        }
+        if (value.startsWith("SLP")) {
+            return value.equals("SLPOFF") ? 0 : (m = SLEEP.matcher(value)).matches() ? Integer.parseInt(m.group(1)) : null;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2017 Sascha Theves
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ * Modifications Copyright 2020 Codersparks
+ */
+
+package io.theves.denon4j.journal;
+
+import io.theves.denon4j.net.Command;
+import io.theves.denon4j.net.Event;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Measures appending received events and sent commands to a journal on a single thread, including the rotation
+ * of its segments. Run with {@code -prof gc} to check that appending does not allocate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JournalBenchmark {
+    private Path directory;
+    private Journal journal;
+    private Event event;
+    private Command command;
+
+    @Setup
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("journal-bench");
+        journal = Journal.open(directory, Journal.DEFAULT_SEGMENT_SIZE, 2);
+        event = Event.create("NSE1Now Playing Radio".getBytes(US_ASCII));
+        command = Command.createCommand("MVUP");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        journal.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public void received() {
+        journal.received(1, event);
+    }
+
+    @Benchmark
+    public void sent() {
+        journal.sent(1, command);
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2017 Sascha Theves
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ * Modifications Copyright 2020 Codersparks
+ */
+
+
+package io.theves.denon4j.net;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Compares the former byte-at-a-time event loop with the chunked {@link FrameDecoder}
+ * on a recorded NSE list dump followed by a volume knob burst.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FrameDecoderBenchmark {
+    private static final int CHUNK_SIZE = 8 * 1024;
+
+    private byte[] traffic;
+    private byte[] chunk;
+
+    @Setup
+    public void setup() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int dump = 0; dump < 20; dump++) {
+            for (int line = 0; line < 9; line++) {
+                out.write(("NSE" + line + (char) 0x09 + "Come Away With Me - Norah Jones ö " + dump + "\r").getBytes(UTF_8));
+            }
+        }
+        for (int vol = 300; vol < 700; vol += 5) {
+            out.write(("MV" + vol + "\rMVMAX 98\r").getBytes(UTF_8));
+        }
+        traffic = out.toByteArray();
+        chunk = new byte[CHUNK_SIZE];
+    }
+
+    @Benchmark
+    public void byteAtATime(Blackhole bh) throws IOException {
+        InputStream in = new ByteArrayInputStream(traffic);
+        int read = 0;
+        while (read != -1) {
+            ByteBuffer rawBuffer = ByteBuffer.allocate(135);
+            while ((read = in.read()) != -1) {
+                if (Protocol.PAUSE == read || Protocol.NULL == read) {
+                    break;
+                }
+                rawBuffer.put((byte) read);
+            }
+            if (rawBuffer.position() > 0) {
+                bh.consume(Event.create(Arrays.copyOfRange(rawBuffer.array(), 0, rawBuffer.position())));
+            }
+        }
+    }
+
+    @Benchmark
+    public void chunked(Blackhole bh) throws IOException {
+        InputStream in = new ByteArrayInputStream(traffic);
+        FrameDecoder decoder = new FrameDecoder(bh::consume);
+        int read;
+        while ((read = in.read(chunk)) != -1) {
+            decoder.decode(chunk, 0, read);
+        }
+    }
+}
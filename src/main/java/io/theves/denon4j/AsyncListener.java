@@ -0,0 +1,261 @@
+/*
+ * Copyright 2017 Sascha Theves
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ * Modifications Copyright 2020 Codersparks
+ */
+
+
+package io.theves.denon4j;
+
+import io.theves.denon4j.net.Event;
+import io.theves.denon4j.net.EventListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandles;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Delivers events to a listener on its own executor instead of the thread reading from the receiver, so a slow
+ * listener does not delay reading events and the responses of pending requests.
+ * <p>
+ * Events are queued in a bounded queue and delivered one at a time in order. When the queue is full the
+ * {@link Overflow} policy applies. Register it like any other listener:
+ * <pre>
+ * receiver.addListener("MV", new AsyncListener(database::store, 1000, Overflow.CONFLATE));
+ * </pre>
+ */
+public final class AsyncListener implements EventListener, AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    /**
+     * What happens to an event received while the queue is full.
+     */
+    public enum Overflow {
+        /**
+         * Waits for the listener to catch up. This also stops reading events from the receiver, a listener that
+         * sends requests must not block.
+         */
+        BLOCK,
+        /**
+         * Drops the oldest queued event.
+         */
+        DROP_OLDEST,
+        /**
+         * Replaces the latest queued event with the same two character prefix, e.g. a newer <code>PWSTANDBY</code>
+         * replaces <code>PWON</code> and <code>MV455</code> replaces <code>MV450</code>. Drops the oldest event if
+         * there is none.
+         */
+        CONFLATE
+    }
+
+    private final EventListener listener;
+    private final Overflow overflow;
+    private final Executor executor;
+    private final ExecutorService ownExecutor;
+
+    private final Lock lock = new ReentrantLock();
+    // guarded by lock
+    private final EventQueue queue;
+    private boolean draining;
+
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong maxLagNanos = new AtomicLong();
+
+    /**
+     * Creates an asynchronous listener with its own thread.
+     *
+     * @param listener the listener to deliver to.
+     * @param capacity the maximum number of queued events.
+     * @param overflow the overflow policy.
+     */
+    public AsyncListener(EventListener listener, int capacity, Overflow overflow) {
+        this(listener, capacity, overflow, null);
+    }
+
+    /**
+     * Creates an asynchronous listener delivering on the given executor, events are still delivered one at a time.
+     *
+     * @param listener the listener to deliver to.
+     * @param capacity the maximum number of queued events.
+     * @param overflow the overflow policy.
+     * @param executor the executor, <code>null</code> to create a thread for this listener.
+     */
+    public AsyncListener(EventListener listener, int capacity, Overflow overflow, Executor executor) {
+        this.queue = new EventQueue(lock, capacity, overflow);
+        this.listener = Objects.requireNonNull(listener);
+        this.overflow = overflow;
+        if (executor == null) {
+            this.ownExecutor = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "AsyncListener-" + listener);
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.executor = ownExecutor;
+        } else {
+            this.ownExecutor = null;
+            this.executor = executor;
+        }
+    }
+
+    @Override
+    public void received(Event event) {
+        boolean schedule;
+        lock.lock();
+        try {
+            EventQueue.Offer offer = queue.offer(event);
+            if (offer == EventQueue.Offer.CLOSED) {
+                return;
+            }
+            if (offer != EventQueue.Offer.QUEUED) {
+                dropped.incrementAndGet();
+            }
+            if (offer == EventQueue.Offer.CONFLATED) {
+                // a drain is already scheduled for the queued event
+                return;
+            }
+            schedule = !draining;
+            draining = true;
+        } finally {
+            lock.unlock();
+        }
+        if (schedule) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                logger.warn("Executor of {} rejected delivery", listener, e);
+                lock.lock();
+                try {
+                    draining = false;
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            EventQueue.Entry next;
+            lock.lock();
+            try {
+                next = queue.poll();
+                if (next == null) {
+                    draining = false;
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+            maxLagNanos.accumulateAndGet(System.nanoTime() - next.enqueuedNanos(), Math::max);
+            try {
+                listener.received(next.event());
+            } catch (Exception e) {
+                logger.error("Caught exception from listener: " + listener, e);
+            }
+            delivered.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return the number of events waiting to be delivered.
+     */
+    public int queued() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * How long the oldest queued event has been waiting.
+     *
+     * @return the lag, zero if no event is queued.
+     */
+    public Duration lag() {
+        lock.lock();
+        try {
+            EventQueue.Entry oldest = queue.peek();
+            return oldest == null ? Duration.ZERO : Duration.ofNanos(System.nanoTime() - oldest.enqueuedNanos());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the longest time an event waited before it was delivered.
+     */
+    public Duration maxLag() {
+        return Duration.ofNanos(maxLagNanos.get());
+    }
+
+    /**
+     * @return the number of events delivered to the listener.
+     */
+    public long delivered() {
+        return delivered.get();
+    }
+
+    /**
+     * @return the number of events dropped or conflated because the queue was full.
+     */
+    public long dropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Stops accepting events and shuts down the thread of this listener, queued events are still delivered.
+     * Remove the listener from the receiver separately.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            queue.close();
+        } finally {
+            lock.unlock();
+        }
+        if (ownExecutor != null) {
+            ownExecutor.shutdown();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "AsyncListener{" +
+            "listener=" + listener +
+            ", overflow=" + overflow +
+            ", queued=" + queued() +
+            ", delivered=" + delivered.get() +
+            ", dropped=" + dropped.get() +
+            ", maxLag=" + maxLag() +
+            '}';
+    }
+}
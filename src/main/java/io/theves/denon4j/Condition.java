@@ -19,7 +19,7 @@
 
 package io.theves.denon4j;
 
-import java.util.stream.Stream;
+import io.theves.denon4j.net.Event;
 
 /**
  * Used to check if a response is completely received.
@@ -36,6 +36,17 @@ public interface Condition {
      */
     boolean fulfilled(RecvContext ctx);
 
+    /**
+     * Starts evaluating this condition for one response. The evaluation is updated with each received event and
+     * may keep state, e.g. whether a regex matched, so it does not need to check all events again. The default
+     * evaluation checks {@link #fulfilled(RecvContext)} on every update.
+     *
+     * @return the evaluation.
+     */
+    default Evaluation evaluation() {
+        return (ctx, event) -> fulfilled(ctx);
+    }
+
     /**
      * Condition that is fullfilled if the given regex matches any of the received events.
      *
@@ -43,9 +54,7 @@ public interface Condition {
      * @return the regex condition.
      */
     static Condition regex(String regex) {
-        return context ->
-            context.received().stream()
-                .anyMatch(e -> e.asciiValue().matches(regex));
+        return new Conditions.Regex(regex);
     }
 
     /**
@@ -75,7 +84,7 @@ public interface Condition {
      * @return the condition.
      */
     static Condition anyMatch(Condition... conditions) {
-        return ctx -> Stream.of(conditions).anyMatch(c -> c.fulfilled(ctx));
+        return new Conditions.AnyMatch(conditions);
     }
 
     /**
@@ -85,6 +94,21 @@ public interface Condition {
      * @return the condition.
      */
     static Condition allMatch(Condition... conditions) {
-        return ctx -> Stream.of(conditions).allMatch(c -> c.fulfilled(ctx));
+        return new Conditions.AllMatch(conditions);
+    }
+
+    /**
+     * The state of a condition while a response is received, see {@link #evaluation()}.
+     */
+    @FunctionalInterface
+    interface Evaluation {
+        /**
+         * Updates the evaluation with a received event.
+         *
+         * @param ctx   the request context, its received events include <code>event</code>.
+         * @param event the received event or <code>null</code> to check before any event was received.
+         * @return <code>true</code> if fulfilled.
+         */
+        boolean update(RecvContext ctx, Event event);
     }
 }
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2017 Sascha Theves
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ * Modifications Copyright 2020 Codersparks
+ */
+
+
+package io.theves.denon4j;
+
+import io.theves.denon4j.Condition.Evaluation;
+import io.theves.denon4j.net.Event;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Precompiled implementations of the {@link Condition} factories.
+ */
+final class Conditions {
+    private static final int MAX_CACHED_MATCHERS = 256;
+    private static final Pattern LITERAL_PREFIX = Pattern.compile("([A-Za-z0-9 ]+)\\.\\*");
+    private static final Map<String, Predicate<Event>> MATCHERS = new ConcurrentHashMap<>();
+
+    private Conditions() {
+    }
+
+    /**
+     * Compiles the regex once, regexes like <code>NSE.*</code> become a byte prefix comparison.
+     *
+     * @param regex the regex the whole event must match.
+     * @return the matcher.
+     */
+    static Predicate<Event> matcher(String regex) {
+        Predicate<Event> matcher = MATCHERS.get(regex);
+        if (matcher == null) {
+            matcher = compile(regex);
+            if (MATCHERS.size() < MAX_CACHED_MATCHERS) {
+                MATCHERS.put(regex, matcher);
+            }
+        }
+        return matcher;
+    }
+
+    private static Predicate<Event> compile(String regex) {
+        Matcher literal = LITERAL_PREFIX.matcher(regex);
+        if (literal.matches()) {
+            byte[] prefix = literal.group(1).getBytes(US_ASCII);
+            return event -> event.startsWith(prefix);
+        }
+        Pattern pattern = Pattern.compile(regex);
+        return event -> pattern.matcher(event.asciiValue()).matches();
+    }
+
+    static final class Regex implements Condition {
+        private final Predicate<Event> matcher;
+
+        Regex(String regex) {
+            this.matcher = matcher(regex);
+        }
+
+        @Override
+        public boolean fulfilled(RecvContext ctx) {
+            for (Event event : ctx.received()) {
+                if (matcher.test(event)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Evaluation evaluation() {
+            boolean[] matched = new boolean[1];
+            return (ctx, event) -> {
+                if (!matched[0] && event != null) {
+                    matched[0] = matcher.test(event);
+                }
+                return matched[0];
+            };
+        }
+    }
+
+    static final class AllMatch implements Condition {
+        private final Condition[] conditions;
+
+        AllMatch(Condition[] conditions) {
+            this.conditions = conditions.clone();
+        }
+
+        @Override
+        public boolean fulfilled(RecvContext ctx) {
+            for (Condition condition : conditions) {
+                if (!condition.fulfilled(ctx)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public Evaluation evaluation() {
+            Evaluation[] evaluations = evaluations(conditions);
+            return (ctx, event) -> {
+                boolean all = true;
+                // every evaluation sees every event to keep its state
+                for (Evaluation evaluation : evaluations) {
+                    all &= evaluation.update(ctx, event);
+                }
+                return all;
+            };
+        }
+    }
+
+    static final class AnyMatch implements Condition {
+        private final Condition[] conditions;
+
+        AnyMatch(Condition[] conditions) {
+            this.conditions = conditions.clone();
+        }
+
+        @Override
+        public boolean fulfilled(RecvContext ctx) {
+            for (Condition condition : conditions) {
+                if (condition.fulfilled(ctx)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Evaluation evaluation() {
+            Evaluation[] evaluations = evaluations(conditions);
+            return (ctx, event) -> {
+                boolean any = false;
+                for (Evaluation evaluation : evaluations) {
+                    any |= evaluation.update(ctx, event);
+                }
+                return any;
+            };
+        }
+    }
+
+    private static Evaluation[] evaluations(Condition[] conditions) {
+        Evaluation[] evaluations = new Evaluation[conditions.length];
+        for (int i = 0; i < conditions.length; i++) {
+            evaluations[i] = conditions[i].evaluation();
+        }
+        return evaluations;
+    }
+}
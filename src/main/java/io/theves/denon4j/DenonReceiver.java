@@ -23,13 +23,29 @@
 package io.theves.denon4j;
 
 import io.theves.denon4j.controls.*;
+import io.theves.denon4j.journal.Journal;
 import io.theves.denon4j.net.EventListener;
 import io.theves.denon4j.net.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.lang.invoke.MethodHandles;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import static java.lang.String.format;
 
@@ -40,12 +56,23 @@ import static java.lang.String.format;
  */
 public class DenonReceiver implements AutoCloseable, EventDispatcher {
     private static final long RECV_TIMEOUT = 10 * 1000L;
+    // times the responses, expired requests are completed on COMPLETION as dependent stages may block
+    private static final ScheduledThreadPoolExecutor EXPIRY = expiryScheduler();
+    // completes expired and failed requests, not shared with listeners or subscribers so their load cannot delay it
+    private static final ExecutorService COMPLETION = Executors.newCachedThreadPool(completionThreads());
 
     private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
-    private final Object sendReceiveLock = new Object();
-    private final List<EventListener> eventListeners;
+    // orders starting requests, the reader completes them without it
+    private final Lock sendLock = new ReentrantLock();
+    // requests that have been sent and wait for their response, in the order they were sent
+    private final Deque<RecvContext> pending = new ConcurrentLinkedDeque<>();
+    // requests that wait for a free slot, guarded by sendLock
+    private final Deque<RecvContext> queued = new ArrayDeque<>();
+    private final ListenerIndex eventListeners = new ListenerIndex();
     private final Protocol protocol;
+    private final ReceiverState state = new ReceiverState();
+    private final RequestTracer tracer = new RequestTracer();
 
     private Collection<AbstractControl> controls;
     private Toggle powerToggle;
@@ -57,8 +84,10 @@ public class DenonReceiver implements AutoCloseable, EventDispatcher {
     private NetUsbIPodControl netUsb;
     private Menu menu;
     private Setting selectSurround;
-    private Session session;
-    private RecvContext currentContext;
+    private volatile Session session;
+    private volatile Journal journal;
+    private volatile int journalId;
+    private int maxInFlight = 1;
     private SleepTimer sleepTimer;
     private Volume subwooferVolume;
     private Volume centerVolume;
@@ -79,9 +108,16 @@ public class DenonReceiver implements AutoCloseable, EventDispatcher {
         this(Protocol.tcp(host, port));
     }
 
+    public DenonReceiver(String host, int port, ExecutionMode mode) {
+        this(Protocol.tcp(host, port, mode));
+    }
+
+    public DenonReceiver(String host, int port, NioTransport transport) {
+        this(Protocol.tcp(host, port, transport));
+    }
+
     public DenonReceiver(Protocol protocol) {
         this.protocol = Objects.requireNonNull(protocol);
-        this.eventListeners = Collections.synchronizedList(new ArrayList<>());
         this.controls = new ArrayList<>();
         this.protocol.setDispatcher(this);
 
@@ -102,8 +138,8 @@ public class DenonReceiver implements AutoCloseable, EventDispatcher {
 
         subwooferVolume = new Volume(this, "CV", "SW UP", "SW DOWN") {
             @Override
-            public void set(String value) {
-                super.set("SW " + value);
+            protected String toParameter(String value) {
+                return "SW " + value;
             }
         };
         subwooferVolume.setName("Subwoofer Volume");
@@ -111,8 +147,8 @@ public class DenonReceiver implements AutoCloseable, EventDispatcher {
 
         centerVolume = new Volume(this, "CV", "C UP", "C DOWN") {
             @Override
-            public void set(String value) {
-                super.set("C " + value);
+            protected String toParameter(String value) {
+                return "C " + value;
             }
         };
         centerVolume.setName("Center Volume");
@@ -120,8 +156,8 @@ public class DenonReceiver implements AutoCloseable, EventDispatcher {
 
         frontLeftVolume = new Volume(this, "CV", "FL UP", "FL DOWN") {
             @Override
-            public void set(String value) {
-                super.set("FL " + value);
+            protected String toParameter(String value) {
+                return "FL " + value;
             }
         };
         frontLeftVolume.setName("Front Left Volume");
@@ -129,8 +165,8 @@ public class DenonReceiver implements AutoCloseable, EventDispatcher {
 
         frontRightVolume = new Volume(this, "CV", "FR UP", "FR DOWN") {
             @Override
-            public void set(String value) {
-                super.set("FR " + value);
+            protected String toParameter(String value) {
+                return "FR " + value;
             }
         };
         frontRightVolume.setName("Front Right Volume");
@@ -138,8 +174,8 @@ public class DenonReceiver implements AutoCloseable, EventDispatcher {
 
         surroundLeftVolume = new Volume(this, "CV", "SL UP", "SL DOWN") {
             @Override
-            public void set(String value) {
-                super.set("SL " + value);
+            protected String toParameter(String value) {
+                return "SL " + value;
             }
         };
         surroundLeftVolume.setName("Surround Left Volume");
@@ -147,8 +183,8 @@ public class DenonReceiver implements AutoCloseable, EventDispatcher {
 
         surroundRightVolume = new Volume(this, "CV", "SR UP", "SR DOWN") {
             @Override
-            public void set(String value) {
-                super.set("SR " + value);
+            protected String toParameter(String value) {
+                return "SR " + value;
             }
         };
         surroundRightVolume.setName("Surround Right Volume");
@@ -156,8 +192,8 @@ public class DenonReceiver implements AutoCloseable, EventDispatcher {
 
         surroundBackRightVolume = new Volume(this, "CV", "SBR UP", "SBR DOWN") {
             @Override
-            public void set(String value) {
-                super.set("SBR " + value);
+            protected String toParameter(String value) {
+                return "SBR " + value;
             }
         };
         surroundBackRightVolume.setName("Surround Back Right Volume");
@@ -165,8 +201,8 @@ public class DenonReceiver implements AutoCloseable, EventDispatcher {
 
         surroundBackLeftVolume = new Volume(this, "CV", "SBL UP", "SBL DOWN") {
             @Override
-            public void set(String value) {
-                super.set("SBL " + value);
+            protected String toParameter(String value) {
+                return "SBL " + value;
             }
         };
         surroundBackLeftVolume.setName("Surround Back Left Volume");
@@ -174,8 +210,8 @@ public class DenonReceiver implements AutoCloseable, EventDispatcher {
 
         surroundBackVolume = new Volume(this, "CV", "SB UP", "SB DOWN") {
             @Override
-            public void set(String value) {
-                super.set("SB " + value);
+            protected String toParameter(String value) {
+                return "SB " + value;
             }
         };
         surroundBackVolume.setName("Surround Back Volume");
@@ -183,8 +219,8 @@ public class DenonReceiver implements AutoCloseable, EventDispatcher {
 
         frontHeightLeftVolume = new Volume(this, "CV", "FHL UP", "FHL DOWN") {
             @Override
-            public void set(String value) {
-                super.set("FHL " + value);
+            protected String toParameter(String value) {
+                return "FHL " + value;
             }
         };
         frontHeightLeftVolume.setName("Front Height Left Volume");
@@ -192,8 +228,8 @@ public class DenonReceiver implements AutoCloseable, EventDispatcher {
 
         frontHeightRightVolume = new Volume(this, "CV", "FHR UP", "FHR DOWN") {
             @Override
-            public void set(String value) {
-                super.set("FHR " + value);
+            protected String toParameter(String value) {
+                return "FHR " + value;
             }
         };
         frontHeightRightVolume.setName("Front Height Right Volume");
@@ -321,10 +357,61 @@ public class DenonReceiver implements AutoCloseable, EventDispatcher {
         return sleepTimer;
     }
 
-    public void addListener(EventListener listener) {
-        if (null != listener) {
-            eventListeners.add(listener);
+    /**
+     * Registers a listener for all events. Controls only receive the events starting with their command prefix.
+     *
+     * @param listener the listener.
+     * @return the handle to remove the listener, or <code>null</code> if the listener is <code>null</code>.
+     */
+    public ListenerRegistration addListener(EventListener listener) {
+        String prefix = listener instanceof AbstractControl ? ((AbstractControl) listener).getCommandPrefix() : null;
+        return addListener(prefix, listener);
+    }
+
+    /**
+     * Registers a listener for the events starting with <code>prefix</code>, e.g. <code>MV</code>. Listeners
+     * with a prefix are notified before listeners for all events. Listeners may be added and removed at any time,
+     * including from within a listener.
+     *
+     * @param prefix   the command prefix.
+     * @param listener the listener.
+     * @return the handle to remove the listener, or <code>null</code> if the listener is <code>null</code>.
+     */
+    public ListenerRegistration addListener(String prefix, EventListener listener) {
+        if (null == listener) {
+            return null;
         }
+        return eventListeners.add(prefix, listener);
+    }
+
+    /**
+     * Creates a publisher of the received events starting with one of the <code>prefixes</code>, or of all events
+     * without prefixes. Subscribers receive the events on the common pool, up to 256 events not yet requested are
+     * queued per subscriber before the oldest are dropped.
+     *
+     * @param prefixes the command prefixes, e.g. <code>MV</code>.
+     * @return the publisher.
+     */
+    public EventPublisher publisher(String... prefixes) {
+        return publisher(256, AsyncListener.Overflow.DROP_OLDEST, ForkJoinPool.commonPool(), prefixes);
+    }
+
+    /**
+     * Creates a publisher of the received events starting with one of the <code>prefixes</code>, or of all events
+     * without prefixes.
+     *
+     * @param capacity the maximum number of events queued per subscriber.
+     * @param overflow the policy when the queue of a subscriber is full.
+     * @param executor the executor delivering the events.
+     * @param prefixes the command prefixes, e.g. <code>MV</code>.
+     * @return the publisher.
+     */
+    public EventPublisher publisher(int capacity, AsyncListener.Overflow overflow, Executor executor,
+                                    String... prefixes) {
+        if (overflow == null || executor == null || prefixes == null) {
+            throw new IllegalArgumentException("Arguments must not be null");
+        }
+        return new EventPublisher(this, capacity, overflow, executor, prefixes);
     }
 
     public void removeListener(EventListener eventListener) {
@@ -367,35 +454,76 @@ public class DenonReceiver implements AutoCloseable, EventDispatcher {
 
     @Override
     public final void dispatch(Event event) {
+        Journal j = journal;
+        if (j != null) {
+            j.received(journalId, event);
+        }
         recv(event);
         notifyEventListeners(event);
     }
 
     private void recv(Event event) {
-        synchronized (sendReceiveLock) {
-            if (isReceiving()) {
-                currentContext.received().add(event);
-                if (currentContext.fulfilled()) {
-                    sendReceiveLock.notify();
+        if (pending.isEmpty()) {
+            return;
+        }
+        RecvContext fulfilled = null;
+        boolean captured = false;
+        for (RecvContext ctx : pending) {
+            if (!ctx.accepts(event)) {
+                continue;
+            }
+            // the event belongs to the oldest accepting request only, later ones wait for the next response
+            if (ctx.add(event)) {
+                captured = true;
+                if (ctx.complete()) {
+                    pending.remove(ctx);
+                    fulfilled = ctx;
                 }
+                break;
+            }
+            if (!ctx.ended()) {
+                captured = true;
+                break;
+            }
+            // ended meanwhile, e.g. expired, the next request may take the event
+        }
+        Session s = session;
+        if (s != null) {
+            s.stats().captured(captured);
+        }
+        if (fulfilled != null) {
+            List<RecvContext> done = new ArrayList<>();
+            done.add(fulfilled);
+            sendLock.lock();
+            try {
+                startQueued(done);
+            } finally {
+                sendLock.unlock();
             }
+            publish(done);
         }
     }
 
-    private void notifyEventListeners(Event event) {
-        synchronized (eventListeners) {
-            eventListeners.forEach(listener -> {
-                try {
-                    listener.received(event);
-                } catch (Exception e) {
-                    logger.error("Caught exception from listener: " + listener, e);
-                }
-            });
+    @Override
+    public void sending(Command command) {
+        Journal j = journal;
+        if (j != null) {
+            j.sent(journalId, command);
+        }
+        Session s = session;
+        if (s != null) {
+            s.stats().sent(command);
+        }
+        for (RecvContext ctx : pending) {
+            if (!ctx.isOnWire() && command.equals(ctx.command())) {
+                ctx.onWire();
+                break;
+            }
         }
     }
 
-    private boolean isReceiving() {
-        return currentContext != null && currentContext.isReceiving();
+    private void notifyEventListeners(Event event) {
+        eventListeners.dispatch(event);
     }
 
     @Override
@@ -406,6 +534,7 @@ public class DenonReceiver implements AutoCloseable, EventDispatcher {
     public void disconnect() {
         getControls().forEach(this::removeListener);
         protocol.disconnect();
+        state.clear();
         session.finish();
     }
 
@@ -415,9 +544,115 @@ public class DenonReceiver implements AutoCloseable, EventDispatcher {
 
     public void connect(int timeout) {
         session = new Session(this);
+        state.clear();
+        controls.forEach(AbstractControl::reset);
         protocol.establishConnection(timeout);
     }
 
+    /**
+     * Connects and synchronizes the state of all controls, see {@link #sync(Duration)}. The time both took is
+     * reported as {@link Session#startupTime()}.
+     *
+     * @param timeout  the connect timeout in milliseconds.
+     * @param deadline the time to wait for the values.
+     * @return the collected values.
+     */
+    public StateSnapshot connect(int timeout, Duration deadline) {
+        long start = System.nanoTime();
+        connect(timeout);
+        StateSnapshot snapshot = sync(deadline);
+        session.startupCompleted(Duration.ofNanos(System.nanoTime() - start));
+        return snapshot;
+    }
+
+    /**
+     * Queries the values of all controls back to back, at the pace of the command interval, and waits until the
+     * receiver reported all of them or the deadline passes. The values are also kept in the {@link #state()}.
+     *
+     * @param deadline the time to wait for the values.
+     * @return the values reported before the deadline.
+     */
+    public StateSnapshot sync(Duration deadline) {
+        long start = System.nanoTime();
+        List<AbstractControl> synced = new ArrayList<>();
+        Set<String> queries = new LinkedHashSet<>();
+        for (AbstractControl control : controls) {
+            if (control.stateQuery() != null) {
+                synced.add(control);
+                queries.add(control.stateQuery());
+            }
+        }
+        CompletableFuture<Void> complete = new CompletableFuture<>();
+        ListenerRegistration completion = addListener(event -> {
+            if (synced.stream().allMatch(control -> reportedSince(control, start))) {
+                complete.complete(null);
+            }
+        });
+        try {
+            // one-way, the responses are picked up by the controls
+            queries.forEach(this::sendAsync);
+            complete.get(deadline.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (java.util.concurrent.TimeoutException e) {
+            logger.debug("State not complete after {}", deadline);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new ConnectionException(e.getCause());
+        } finally {
+            completion.remove();
+        }
+
+        Map<AbstractControl, ReceiverState.Value<String>> values = new LinkedHashMap<>();
+        List<AbstractControl> missing = new ArrayList<>();
+        for (AbstractControl control : synced) {
+            Optional<ReceiverState.Value<String>> value = state.get(control);
+            if (value.isPresent() && value.get().updatedNanos() - start >= 0) {
+                values.put(control, value.get());
+            } else {
+                missing.add(control);
+            }
+        }
+        return new StateSnapshot(values, missing, Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    private boolean reportedSince(AbstractControl control, long nanos) {
+        return state.get(control).map(value -> value.updatedNanos() - nanos >= 0).orElse(false);
+    }
+
+    /**
+     * The last known values of the controls, see {@link ReceiverState#setMaxAge(Duration)} to answer getters from it.
+     *
+     * @return the receiver state.
+     */
+    public ReceiverState state() {
+        return state;
+    }
+
+    /**
+     * The tracer of the phases of requests, disabled by default.
+     *
+     * @return the tracer.
+     */
+    public RequestTracer tracer() {
+        return tracer;
+    }
+
+    /**
+     * Records the events received and the commands written from now on to the journal. The journal may be shared
+     * by receivers with different ids and is not closed by this receiver.
+     *
+     * @param journal    the journal, <code>null</code> to stop recording.
+     * @param receiverId the id of this receiver in the journal.
+     */
+    public void setJournal(Journal journal, int receiverId) {
+        this.journalId = receiverId;
+        this.journal = journal;
+    }
+
+    public Journal getJournal() {
+        return journal;
+    }
+
     public Session getSession() {
         return session;
     }
@@ -426,58 +661,392 @@ public class DenonReceiver implements AutoCloseable, EventDispatcher {
         return protocol.isConnected();
     }
 
+    /**
+     * Sets the minimum interval between two commands written to the receiver.
+     *
+     * @param interval the interval, defaults to 50 ms.
+     */
+    public void setCommandInterval(Duration interval) {
+        protocol.setCommandInterval(interval);
+    }
+
+    public OutboundStats outboundStats() {
+        return protocol.outboundStats();
+    }
+
     public Event send(final String command,final String regex) {
+        return send(command, regex, new String[0]);
+    }
+
+    /**
+     * Sends the command and waits for the first event matching <code>regex</code>. Only events starting with one
+     * of the <code>prefixes</code> are captured as response, see {@link #send(String, Condition, String...)}.
+     *
+     * @param command  the command to send.
+     * @param regex    the regex the response must match.
+     * @param prefixes the prefixes of the response events.
+     * @return the first matching event.
+     */
+    public Event send(final String command, final String regex, final String... prefixes) {
+        RecvContext ctx = submit(command, Condition.regex(regex), prefixes);
+        return firstMatch(await(ctx), regex, ctx);
+    }
+
+    /**
+     * Asynchronous variant of {@link #send(String, String)}.
+     *
+     * @param command the command to send.
+     * @param regex   the regex the response must match.
+     * @return the first matching event, or a future completed with a {@link TimeoutException}.
+     */
+    public CompletableFuture<Event> sendAsync(final String command, final String regex) {
+        return sendAsync(command, regex, new String[0]);
+    }
 
-        return send(command, Condition.regex(regex))
+    /**
+     * Asynchronous variant of {@link #send(String, String, String...)}.
+     *
+     * @param command  the command to send.
+     * @param regex    the regex the response must match.
+     * @param prefixes the prefixes of the response events.
+     * @return the first matching event, or a future completed with a {@link TimeoutException}.
+     */
+    public CompletableFuture<Event> sendAsync(final String command, final String regex, final String... prefixes) {
+        RecvContext ctx = submit(command, Condition.regex(regex), prefixes);
+        return ctx.response().copy().thenApply(events -> firstMatch(events, regex, ctx));
+    }
+
+    private Event firstMatch(List<Event> events, String regex, RecvContext ctx) {
+        return events
             .stream()
-            .filter(event -> event.asciiValue().matches(regex))
+            .filter(Conditions.matcher(regex))
             .findFirst().orElseThrow(() -> new TimeoutException(
               format("No response received after %s milliseconds. Receiver may be too busy to respond.", RECV_TIMEOUT)
+                  + Optional.ofNullable(ctx.timeline()).map(timeline -> " Timeline: " + timeline).orElse("")
             ));
     }
 
+    /**
+     * Enables pipelining: up to <code>maxInFlight</code> requests are sent without waiting for the responses of
+     * previous ones. Each event is then correlated to the oldest pending request capturing its prefix.
+     * Requests sent without prefixes capture all events, so requests that overlap should declare the prefixes of
+     * their responses, as the controls and {@link #sendAll(Map)} do. A value of <code>1</code> disables pipelining.
+     *
+     * @param maxInFlight the maximum number of outstanding requests.
+     */
+    public void enablePipelining(int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be >= 1");
+        }
+        List<RecvContext> done = new ArrayList<>();
+        sendLock.lock();
+        try {
+            this.maxInFlight = maxInFlight;
+            startQueued(done);
+        } finally {
+            sendLock.unlock();
+        }
+        publish(done);
+    }
+
+    public void disablePipelining() {
+        enablePipelining(1);
+    }
+
+    public boolean isPipelining() {
+        sendLock.lock();
+        try {
+            return maxInFlight > 1;
+        } finally {
+            sendLock.unlock();
+        }
+    }
+
     /**
      * Send the command to the receiver and waits for the response until the <code>condition</code> is fulfilled.
+     * All events received while the request is pending are captured as response.
      *
      * @param command the command to send.
      * @param c       the condition.
      * @return the received response.
      */
     public final List<Event> send(String command, Condition c) {
-        if (command == null || c == null) {
+        return await(submit(command, c));
+    }
+
+    /**
+     * Send the command to the receiver and waits for the response until the <code>condition</code> is fulfilled.
+     * Only events starting with one of the <code>prefixes</code> are captured as response, other events are only
+     * passed to the listeners. Without prefixes or with an empty prefix all events are captured.
+     *
+     * @param command  the command to send.
+     * @param c        the condition.
+     * @param prefixes the prefixes of the response events.
+     * @return the received response.
+     */
+    public final List<Event> send(String command, Condition c, String... prefixes) {
+        return await(submit(command, c, prefixes));
+    }
+
+    /**
+     * Sends the command to the receiver without blocking. The returned future is completed on the thread that
+     * dispatches the fulfilling event, or with the events received so far when the response timeout expires.
+     * All events received while the request is pending are captured as response.
+     *
+     * @param command the command to send.
+     * @param c       the condition.
+     * @return the future response.
+     */
+    public final CompletableFuture<List<Event>> sendAsync(String command, Condition c) {
+        return submit(command, c).response().copy();
+    }
+
+    /**
+     * Asynchronous variant of {@link #send(String, Condition, String...)}.
+     *
+     * @param command  the command to send.
+     * @param c        the condition.
+     * @param prefixes the prefixes of the response events.
+     * @return the future response.
+     */
+    public final CompletableFuture<List<Event>> sendAsync(String command, Condition c, String... prefixes) {
+        return submit(command, c, prefixes).response().copy();
+    }
+
+    /**
+     * Sends all <code>requests</code> back to back and waits for their responses. With pipelining enabled
+     * this takes about one round trip, otherwise the requests are processed one after another. Each response
+     * captures only the events starting with the prefix of its command, e.g. <code>MV</code> for <code>MV?</code>.
+     *
+     * @param requests the commands to send mapped to the condition of their response.
+     * @return the received responses by command, in the order of <code>requests</code>.
+     */
+    public final Map<String, List<Event>> sendAll(Map<String, Condition> requests) {
+        if (requests == null || requests.entrySet().stream().anyMatch(r -> r.getKey() == null || r.getValue() == null)) {
+            throw new IllegalArgumentException("Arguments must not be null");
+        }
+        Map<String, RecvContext> contexts = new LinkedHashMap<>();
+        requests.forEach((command, c) -> contexts.put(command, submit(command, c, prefixOf(command))));
+        Map<String, List<Event>> responses = new LinkedHashMap<>();
+        contexts.forEach((command, ctx) -> responses.put(command, await(ctx)));
+        return responses;
+    }
+
+    private RecvContext submit(String command, Condition c, String... prefixes) {
+        if (command == null || c == null || prefixes == null) {
             throw new IllegalArgumentException("Arguments must not be null");
         }
+        Command cmd = Command.createCommand(command);
+        // capturing all events unless asked otherwise
+        List<String> capture = Arrays.asList(prefixes);
+        if (capture.isEmpty() || capture.contains("")) {
+            capture = null;
+        }
+        List<RecvContext> done = new ArrayList<>();
+        RecvContext ctx;
+        sendLock.lock();
+        try {
+            ctx = new RecvContext(cmd, c, capture);
+            ctx.trace(tracer.start(cmd));
+            queued.addLast(ctx);
+            startQueued(done);
+        } finally {
+            sendLock.unlock();
+        }
+        publish(done);
+        return ctx;
+    }
+
+    private static String prefixOf(String command) {
+        return Command.createCommand(command).getPrefix();
+    }
 
-        synchronized (sendReceiveLock) {
+    /**
+     * Sends queued requests while request slots are free. Must hold <code>sendLock</code>.
+     *
+     * @param done collects requests that completed immediately or failed.
+     */
+    private void startQueued(List<RecvContext> done) {
+        while (pending.size() < maxInFlight && !queued.isEmpty()) {
+            RecvContext ctx = queued.pollFirst();
+            ctx.beginReceive();
+            pending.addLast(ctx);
+            ctx.expireWith(EXPIRY.schedule(() -> COMPLETION.execute(() -> expire(ctx)),
+                RECV_TIMEOUT, TimeUnit.MILLISECONDS));
             try {
-                currentContext = new RecvContext(c);
-                currentContext.beginReceive();
-                protocol.send(Command.createCommand(command));
-                // check if we can return immediately
-                if (currentContext.fulfilled()) {
-                    return currentContext.received();
+                // sent while holding the lock so the pending order matches the wire order
+                if (protocol.reportsWrites()) {
+                    protocol.sendAsync(ctx.command()).whenComplete((ignored, e) -> {
+                        if (e == null) {
+                            ctx.mark(RequestTimeline.Phase.WRITTEN);
+                        } else {
+                            // never under the lock, the failure may be known already
+                            COMPLETION.execute(() -> writeFailed(ctx, e));
+                        }
+                    });
+                } else {
+                    ctx.onWire();
+                    protocol.send(ctx.command());
+                    ctx.mark(RequestTimeline.Phase.WRITTEN);
                 }
-                // wait for response
-                try {
-                    sendReceiveLock.wait(RECV_TIMEOUT);
-                } catch (InterruptedException e) {
-                    logger.trace("Interrupted while waiting for response", e);
+            } catch (RuntimeException e) {
+                if (ctx.fail(e)) {
+                    pending.remove(ctx);
+                    done.add(ctx);
                 }
+                continue;
+            }
+            // check if we can return immediately, the reader may have completed it already
+            if (ctx.fulfilled() && ctx.complete()) {
+                pending.remove(ctx);
+                done.add(ctx);
+            }
+        }
+    }
 
-                // copy result
-                return new ArrayList<>(currentContext.received());
-            } finally {
-                currentContext.endReceive();
-                logger.debug("Send/Recv took: {}", currentContext.duration().toString());
+    /**
+     * Completes the request with the events received so far, invoked when the response timeout expires.
+     */
+    private void expire(RecvContext ctx) {
+        List<RecvContext> done = new ArrayList<>();
+        sendLock.lock();
+        try {
+            if (!ctx.complete()) {
+                return;
+            }
+            done.add(ctx);
+            queued.remove(ctx);
+            if (pending.remove(ctx)) {
+                startQueued(done);
+            }
+        } finally {
+            sendLock.unlock();
+        }
+        publish(done);
+    }
+
+    /**
+     * Fails the request with the reason its command could not be written.
+     */
+    private void writeFailed(RecvContext ctx, Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        RuntimeException failure = cause instanceof RuntimeException
+            ? (RuntimeException) cause : new ConnectionException("Cannot send " + ctx.command(), cause);
+        List<RecvContext> done = new ArrayList<>();
+        sendLock.lock();
+        try {
+            if (!ctx.fail(failure)) {
+                return;
+            }
+            done.add(ctx);
+            if (pending.remove(ctx)) {
+                startQueued(done);
+            }
+        } finally {
+            sendLock.unlock();
+        }
+        publish(done);
+    }
+
+    private static ScheduledThreadPoolExecutor expiryScheduler() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "RequestExpiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // completed requests cancel their expiry, do not keep them until the timeout
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+    private static ThreadFactory completionThreads() {
+        AtomicInteger count = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, "RequestCompletion-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private void publish(List<RecvContext> done) {
+        Session s = session;
+        done.forEach(ctx -> {
+            logger.debug("Send/Recv took: {}", ctx.duration().toString());
+            if (s != null) {
+                s.stats().response(ctx);
+            }
+            ctx.publish();
+        });
+    }
+
+    private List<Event> await(RecvContext ctx) {
+        try {
+            // the response timeout always completes the future
+            List<Event> response = ctx.response().get();
+            ctx.mark(RequestTimeline.Phase.WOKEN);
+            return response;
+        } catch (InterruptedException e) {
+            // frees the request slot, the caller learns about the interrupt
+            expire(ctx);
+            Thread.currentThread().interrupt();
+            throw new ConnectionException("Interrupted while waiting for the response to " + ctx.command(), e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
             }
+            throw new ConnectionException(e.getCause());
         }
     }
 
+    /**
+     * Sends a command that has no response, like a key press. The command is handed to the protocol directly,
+     * it is neither queued behind outstanding requests nor correlated with received events. Use
+     * {@link #sendAsync(String)} to learn when it was written.
+     *
+     * @param command the command to send.
+     * @throws ConnectionException if the command could not be sent.
+     */
     public void send(String command) {
-        send(command, Condition.bool(true));
+        if (command == null) {
+            throw new IllegalArgumentException("Arguments must not be null");
+        }
+        protocol.send(Command.createCommand(command));
+    }
+
+    /**
+     * Sends a command that has no response without waiting for outstanding requests. The returned future is
+     * completed once the command was written, or once it was handed over if the protocol does not report writes.
+     *
+     * @param command the command to send.
+     * @return the future completed when the command was written.
+     * @throws ConnectionException if the command could not be sent.
+     */
+    public CompletableFuture<Void> sendAsync(String command) {
+        if (command == null) {
+            throw new IllegalArgumentException("Arguments must not be null");
+        }
+        Command cmd = Command.createCommand(command);
+        if (protocol.reportsWrites()) {
+            return protocol.sendAsync(cmd);
+        }
+        protocol.send(cmd);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    int pendingRequests() {
+        return pending.size();
+    }
+
+    int queuedRequests() {
+        sendLock.lock();
+        try {
+            return queued.size();
+        } finally {
+            sendLock.unlock();
+        }
     }
 
     List<EventListener> getEventListeners() {
-        return Collections.unmodifiableList(eventListeners);
+        return Collections.unmodifiableList(eventListeners.listeners());
     }
 }
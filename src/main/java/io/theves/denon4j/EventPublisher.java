@@ -0,0 +1,336 @@
+/*
+ * Copyright 2017 Sascha Theves
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ * Modifications Copyright 2020 Codersparks
+ */
+
+
+
+package io.theves.denon4j;
+
+import io.theves.denon4j.AsyncListener.Overflow;
+import io.theves.denon4j.net.Event;
+import io.theves.denon4j.net.EventListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Publishes the events of a receiver to {@link Flow.Subscriber}s, e.g. a reactive pipeline, honoring their
+ * demand. Every subscription queues the events not yet requested in a bounded queue, when it is full the
+ * {@link Overflow} policy applies. Events are delivered on the executor of the publisher, so a slow subscriber
+ * neither delays reading events nor the responses of pending requests, unless it blocks with
+ * {@link Overflow#BLOCK}.
+ * <pre>
+ * receiver.publisher(1000, Overflow.CONFLATE, executor, "MV", "CV").subscribe(subscriber);
+ * </pre>
+ *
+ * @see DenonReceiver#publisher(String...)
+ */
+public final class EventPublisher implements Flow.Publisher<Event>, AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private final DenonReceiver receiver;
+    private final int capacity;
+    private final Overflow overflow;
+    private final Executor executor;
+    private final List<String> prefixes;
+    private final List<EventSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    private volatile boolean closed;
+
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    EventPublisher(DenonReceiver receiver, int capacity, Overflow overflow, Executor executor, String... prefixes) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be >= 1");
+        }
+        this.receiver = receiver;
+        this.capacity = capacity;
+        this.overflow = Objects.requireNonNull(overflow);
+        this.executor = Objects.requireNonNull(executor);
+        this.prefixes = List.of(prefixes);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super Event> subscriber) {
+        Objects.requireNonNull(subscriber);
+        EventSubscription subscription = new EventSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+        if (closed) {
+            subscription.complete();
+            return;
+        }
+        subscriptions.add(subscription);
+        subscription.register();
+    }
+
+    /**
+     * @return the number of events delivered to all subscribers.
+     */
+    public long delivered() {
+        return delivered.get();
+    }
+
+    /**
+     * @return the number of events dropped or conflated because the queue of a subscription was full.
+     */
+    public long dropped() {
+        return dropped.get();
+    }
+
+    /**
+     * @return the number of active subscriptions.
+     */
+    public int subscribers() {
+        return subscriptions.size();
+    }
+
+    /**
+     * Stops publishing events, subscribers receive the queued events they request and then
+     * {@link Flow.Subscriber#onComplete()}.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        subscriptions.forEach(EventSubscription::complete);
+    }
+
+    @Override
+    public String toString() {
+        return "EventPublisher{" +
+            "prefixes=" + prefixes +
+            ", overflow=" + overflow +
+            ", subscribers=" + subscriptions.size() +
+            ", delivered=" + delivered.get() +
+            ", dropped=" + dropped.get() +
+            '}';
+    }
+
+    private final class EventSubscription implements Flow.Subscription, EventListener {
+        private final Flow.Subscriber<? super Event> subscriber;
+        private final List<ListenerRegistration> registrations = new ArrayList<>();
+
+        private final Lock lock = new ReentrantLock();
+        // guarded by lock
+        private final EventQueue queue = new EventQueue(lock, capacity, overflow);
+        private long demand;
+        private boolean draining;
+        private boolean completed;
+        private boolean cancelled;
+        private Throwable error;
+
+        EventSubscription(Flow.Subscriber<? super Event> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        void register() {
+            lock.lock();
+            try {
+                if (cancelled) {
+                    return;
+                }
+                if (prefixes.isEmpty()) {
+                    registrations.add(receiver.addListener(this));
+                } else {
+                    prefixes.forEach(prefix -> registrations.add(receiver.addListener(prefix, this)));
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void received(Event event) {
+            boolean schedule;
+            lock.lock();
+            try {
+                if (cancelled || completed) {
+                    return;
+                }
+                EventQueue.Offer offer = queue.offer(event);
+                if (offer == EventQueue.Offer.CLOSED) {
+                    return;
+                }
+                if (offer != EventQueue.Offer.QUEUED) {
+                    dropped();
+                }
+                schedule = scheduleDrain();
+            } finally {
+                lock.unlock();
+            }
+            if (schedule) {
+                drainAsync();
+            }
+        }
+
+        private void dropped() {
+            dropped.incrementAndGet();
+            Session session = receiver.getSession();
+            if (session != null) {
+                session.stats().dropped(1);
+            }
+        }
+
+        @Override
+        public void request(long n) {
+            boolean schedule;
+            lock.lock();
+            try {
+                if (cancelled) {
+                    return;
+                }
+                if (n <= 0) {
+                    error = new IllegalArgumentException("Subscriber requested " + n + " events, must be > 0");
+                } else {
+                    demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                }
+                schedule = scheduleDrain();
+            } finally {
+                lock.unlock();
+            }
+            if (schedule) {
+                drainAsync();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            lock.lock();
+            try {
+                cancelled = true;
+                queue.close();
+                queue.clear();
+            } finally {
+                lock.unlock();
+            }
+            unregister();
+        }
+
+        void complete() {
+            boolean schedule;
+            lock.lock();
+            try {
+                completed = true;
+                schedule = scheduleDrain();
+            } finally {
+                lock.unlock();
+            }
+            unregister();
+            if (schedule) {
+                drainAsync();
+            }
+        }
+
+        private void unregister() {
+            List<ListenerRegistration> removed;
+            lock.lock();
+            try {
+                removed = new ArrayList<>(registrations);
+                registrations.clear();
+            } finally {
+                lock.unlock();
+            }
+            removed.forEach(ListenerRegistration::remove);
+            subscriptions.remove(this);
+        }
+
+        /**
+         * Checks whether there is something to signal and no drain is running. Must hold the lock.
+         */
+        private boolean scheduleDrain() {
+            boolean work = error != null || (demand > 0 && !queue.isEmpty()) || (completed && queue.isEmpty());
+            if (cancelled || draining || !work) {
+                return false;
+            }
+            draining = true;
+            return true;
+        }
+
+        private void drainAsync() {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                logger.warn("Executor rejected delivery to {}", subscriber, e);
+                lock.lock();
+                try {
+                    draining = false;
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                EventQueue.Entry next = null;
+                Throwable failure = null;
+                boolean done = false;
+                lock.lock();
+                try {
+                    if (cancelled) {
+                        draining = false;
+                        return;
+                    }
+                    if (error != null) {
+                        failure = error;
+                        cancelled = true;
+                    } else if (demand > 0 && !queue.isEmpty()) {
+                        next = queue.poll();
+                        demand--;
+                    } else if (completed && queue.isEmpty()) {
+                        done = true;
+                        cancelled = true;
+                    } else {
+                        draining = false;
+                        return;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                if (failure != null) {
+                    unregister();
+                    subscriber.onError(failure);
+                } else if (done) {
+                    subscriber.onComplete();
+                } else {
+                    try {
+                        subscriber.onNext(next.event());
+                        delivered.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        // a failing subscriber is considered cancelled
+                        logger.error("Caught exception from subscriber: " + subscriber, e);
+                        cancel();
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2017 Sascha Theves
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ * Modifications Copyright 2020 Codersparks
+ */
+
+
+package io.theves.denon4j;
+
+import io.theves.denon4j.AsyncListener.Overflow;
+import io.theves.denon4j.net.Event;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Objects;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * The bounded queue of events behind {@link AsyncListener} and the subscriptions of {@link EventPublisher},
+ * applying the {@link Overflow} policy when it is full. Not thread safe, all methods must be called holding the
+ * lock given to the constructor.
+ */
+final class EventQueue {
+    // two ASCII characters
+    private static final int PREFIXES = 128 * 128;
+
+    /**
+     * The outcome of {@link #offer(Event)}.
+     */
+    enum Offer {
+        QUEUED,
+        /**
+         * Queued after dropping the oldest event.
+         */
+        DROPPED_OLDEST,
+        /**
+         * Replaced a queued event with the same prefix.
+         */
+        CONFLATED,
+        /**
+         * Not queued because the queue was closed.
+         */
+        CLOSED
+    }
+
+    private final int capacity;
+    private final Overflow overflow;
+    private final Condition notFull;
+    private final Deque<Entry> entries = new ArrayDeque<>();
+    // the latest queued event by prefix, only when conflating
+    private final Entry[] byPrefix;
+    private boolean closed;
+
+    EventQueue(Lock lock, int capacity, Overflow overflow) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be >= 1");
+        }
+        this.capacity = capacity;
+        this.overflow = Objects.requireNonNull(overflow);
+        this.notFull = lock.newCondition();
+        this.byPrefix = overflow == Overflow.CONFLATE ? new Entry[PREFIXES] : null;
+    }
+
+    /**
+     * Queues the event, making room for it if the queue is full. Waits for room with {@link Overflow#BLOCK}.
+     *
+     * @param event the event.
+     * @return the outcome.
+     */
+    Offer offer(Event event) {
+        if (closed) {
+            return Offer.CLOSED;
+        }
+        int prefix = byPrefix != null ? prefixOf(event) : -1;
+        Offer offer = Offer.QUEUED;
+        if (entries.size() >= capacity) {
+            if (overflow == Overflow.BLOCK) {
+                while (entries.size() >= capacity && !closed) {
+                    notFull.awaitUninterruptibly();
+                }
+                if (closed) {
+                    return Offer.CLOSED;
+                }
+            } else {
+                Entry same = prefix >= 0 ? byPrefix[prefix] : null;
+                if (same != null) {
+                    same.event = event;
+                    return Offer.CONFLATED;
+                }
+                // dropping the oldest, also when there is nothing to conflate with
+                forget(entries.pollFirst());
+                offer = Offer.DROPPED_OLDEST;
+            }
+        }
+        Entry entry = new Entry(event, prefix);
+        entries.addLast(entry);
+        if (prefix >= 0) {
+            byPrefix[prefix] = entry;
+        }
+        return offer;
+    }
+
+    /**
+     * Removes the oldest event and wakes up a sender waiting for room.
+     *
+     * @return the oldest event or <code>null</code> if the queue is empty.
+     */
+    Entry poll() {
+        Entry entry = entries.pollFirst();
+        if (entry != null) {
+            forget(entry);
+            notFull.signal();
+        }
+        return entry;
+    }
+
+    /**
+     * @return the oldest event or <code>null</code> if the queue is empty.
+     */
+    Entry peek() {
+        return entries.peekFirst();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    /**
+     * Rejects further events and wakes up all senders waiting for room, queued events can still be polled.
+     */
+    void close() {
+        closed = true;
+        notFull.signalAll();
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Removes all queued events.
+     */
+    void clear() {
+        entries.clear();
+        if (byPrefix != null) {
+            Arrays.fill(byPrefix, null);
+        }
+        notFull.signalAll();
+    }
+
+    private void forget(Entry entry) {
+        if (entry.prefix >= 0 && byPrefix[entry.prefix] == entry) {
+            byPrefix[entry.prefix] = null;
+        }
+    }
+
+    /**
+     * Returns the index of the two character prefix of the event, read without decoding it like in
+     * {@link ListenerIndex}.
+     *
+     * @param event the event.
+     * @return the index or <code>-1</code> if the event has no ASCII prefix.
+     */
+    static int prefixOf(Event event) {
+        if (event.length() < 2) {
+            return -1;
+        }
+        int first = event.byteAt(0);
+        int second = event.byteAt(1);
+        if (first < 0 || second < 0) {
+            return -1;
+        }
+        return (first << 7) | second;
+    }
+
+    static final class Entry {
+        private final int prefix;
+        private final long enqueuedNanos = System.nanoTime();
+        private Event event;
+
+        private Entry(Event event, int prefix) {
+            this.prefix = prefix;
+            this.event = event;
+        }
+
+        Event event() {
+            return event;
+        }
+
+        long enqueuedNanos() {
+            return enqueuedNanos;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2017 Sascha Theves
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ * Modifications Copyright 2020 Codersparks
+ */
+
+
+
+package io.theves.denon4j;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free log-linear histogram of durations. Values are counted in buckets of 1.024 us below 16 units and in
+ * 16 buckets per power of two above, so a percentile is reported with an error below 7%.
+ */
+final class LatencyHistogram {
+    private static final int UNIT_SHIFT = 10;
+    private static final int SUB_BUCKETS = 16;
+    private static final int MAX_EXPONENT = 36;
+    static final int BUCKETS = (MAX_EXPONENT - 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong max = new AtomicLong();
+
+    void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(index(value >>> UNIT_SHIFT));
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Copies the counts up to the bucket of the maximum, the copy is not atomic but every count is.
+     *
+     * @return the counts by bucket.
+     */
+    long[] counts() {
+        long max = this.max.get();
+        if (max == 0 && counts.get(0) == 0) {
+            return new long[0];
+        }
+        long[] copy = new long[index(max >>> UNIT_SHIFT) + 1];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = counts.get(i);
+        }
+        return copy;
+    }
+
+    long max() {
+        return max.get();
+    }
+
+    static int index(long units) {
+        if (units < SUB_BUCKETS) {
+            return (int) units;
+        }
+        int exponent = Math.min(63 - Long.numberOfLeadingZeros(units), MAX_EXPONENT);
+        int sub = (int) (units >>> (exponent - 4)) & (SUB_BUCKETS - 1);
+        return Math.min((exponent - 3) * SUB_BUCKETS + sub, BUCKETS - 1);
+    }
+
+    /**
+     * @return the smallest value in nanos counted in the bucket following <code>index</code>.
+     */
+    static long upperBound(int index) {
+        int next = index + 1;
+        if (next < SUB_BUCKETS) {
+            return (long) next << UNIT_SHIFT;
+        }
+        int exponent = next / SUB_BUCKETS + 3;
+        long units = (long) (SUB_BUCKETS + next % SUB_BUCKETS) << (exponent - 4);
+        return units << UNIT_SHIFT;
+    }
+}
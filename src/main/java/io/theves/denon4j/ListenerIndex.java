@@ -0,0 +1,209 @@
+/*
+ * Copyright 2017 Sascha Theves
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ * Modifications Copyright 2020 Codersparks
+ */
+
+
+package io.theves.denon4j;
+
+import io.theves.denon4j.net.Event;
+import io.theves.denon4j.net.EventListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandles;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Event listeners indexed by the command prefix of the events they handle, so an event only reaches the
+ * listeners whose prefix it starts with.
+ * <p>
+ * Prefixes are indexed by their first two ASCII bytes, longer prefixes like <code>SLP</code> or
+ * <code>TFAN</code> are compared in full within that bucket. Listeners without a prefix receive every event.
+ * Listeners with a prefix are notified before those without, each group in registration order.
+ * <p>
+ * Buckets are immutable arrays replaced on change (copy on write), dispatching reads them without locking and
+ * listeners may add or remove listeners while being notified. Changes only copy the affected bucket.
+ */
+final class ListenerIndex {
+    private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    private static final int ASCII = 128;
+    private static final Registration[] NONE = new Registration[0];
+
+    // first byte -> second byte -> registrations, only allocated for prefixes in use
+    private final AtomicReferenceArray<AtomicReferenceArray<Registration[]>> index = new AtomicReferenceArray<>(ASCII);
+    // registrations with a prefix too short to index, including those without prefix
+    private volatile Registration[] unindexed = NONE;
+    // registrations by listener for removeListener, guarded by this
+    private final Map<EventListener, Deque<Registration>> byListener = new LinkedHashMap<>();
+
+    /**
+     * Registers the listener.
+     *
+     * @param prefix   the prefix of the events to receive, <code>null</code> or empty for all events.
+     * @param listener the listener.
+     * @return the handle to remove the listener.
+     */
+    synchronized ListenerRegistration add(String prefix, EventListener listener) {
+        Registration registration = new Registration(prefix, Objects.requireNonNull(listener));
+        if (registration.isIndexed()) {
+            AtomicReferenceArray<Registration[]> level = index.get(registration.prefix[0]);
+            if (level == null) {
+                level = new AtomicReferenceArray<>(ASCII);
+                index.set(registration.prefix[0], level);
+            }
+            level.set(registration.prefix[1], append(level.get(registration.prefix[1]), registration));
+        } else {
+            unindexed = append(unindexed, registration);
+        }
+        byListener.computeIfAbsent(listener, l -> new ArrayDeque<>()).addLast(registration);
+        return registration;
+    }
+
+    /**
+     * Removes the first registration of the listener.
+     *
+     * @param listener the listener.
+     * @return <code>true</code> if the listener was registered.
+     */
+    synchronized boolean remove(EventListener listener) {
+        Deque<Registration> registrations = byListener.get(listener);
+        if (registrations == null) {
+            return false;
+        }
+        registrations.peekFirst().remove();
+        return true;
+    }
+
+    /**
+     * @return all listeners, in the order they were first registered.
+     */
+    synchronized List<EventListener> listeners() {
+        List<EventListener> listeners = new ArrayList<>();
+        byListener.forEach((listener, registrations) -> registrations.forEach(r -> listeners.add(listener)));
+        return listeners;
+    }
+
+    /**
+     * Notifies the listeners of the event, exceptions thrown by a listener are logged.
+     *
+     * @param event the received event.
+     */
+    void dispatch(Event event) {
+        if (event.length() >= 2) {
+            int first = event.byteAt(0);
+            int second = event.byteAt(1);
+            if (first >= 0 && second >= 0) {
+                AtomicReferenceArray<Registration[]> level = index.get(first);
+                if (level != null) {
+                    notify(level.get(second), event);
+                }
+            }
+        }
+        notify(unindexed, event);
+    }
+
+    private static void notify(Registration[] registrations, Event event) {
+        if (registrations == null) {
+            return;
+        }
+        for (Registration registration : registrations) {
+            if (!registration.removed && event.startsWith(registration.prefix)) {
+                try {
+                    registration.listener.received(event);
+                } catch (Exception e) {
+                    logger.error("Caught exception from listener: " + registration.listener, e);
+                }
+            }
+        }
+    }
+
+    private static Registration[] append(Registration[] registrations, Registration registration) {
+        if (registrations == null) {
+            return new Registration[]{registration};
+        }
+        Registration[] changed = Arrays.copyOf(registrations, registrations.length + 1);
+        changed[registrations.length] = registration;
+        return changed;
+    }
+
+    private static Registration[] without(Registration[] registrations, Registration registration) {
+        for (int i = 0; i < registrations.length; i++) {
+            if (registrations[i] == registration) {
+                if (registrations.length == 1) {
+                    return null;
+                }
+                Registration[] changed = new Registration[registrations.length - 1];
+                System.arraycopy(registrations, 0, changed, 0, i);
+                System.arraycopy(registrations, i + 1, changed, i, registrations.length - i - 1);
+                return changed;
+            }
+        }
+        return registrations;
+    }
+
+    private final class Registration implements ListenerRegistration {
+        private final byte[] prefix;
+        private final EventListener listener;
+        private volatile boolean removed;
+
+        Registration(String prefix, EventListener listener) {
+            this.prefix = prefix == null ? new byte[0] : prefix.getBytes(US_ASCII);
+            this.listener = listener;
+        }
+
+        boolean isIndexed() {
+            return prefix.length >= 2 && prefix[0] >= 0 && prefix[1] >= 0;
+        }
+
+        @Override
+        public void remove() {
+            synchronized (ListenerIndex.this) {
+                if (removed) {
+                    return;
+                }
+                removed = true;
+                if (isIndexed()) {
+                    AtomicReferenceArray<Registration[]> level = index.get(prefix[0]);
+                    level.set(prefix[1], without(level.get(prefix[1]), this));
+                } else {
+                    Registration[] changed = without(unindexed, this);
+                    unindexed = changed == null ? NONE : changed;
+                }
+                Deque<Registration> registrations = byListener.get(listener);
+                registrations.remove(this);
+                if (registrations.isEmpty()) {
+                    byListener.remove(listener);
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "ListenerRegistration{" +
+                "prefix='" + new String(prefix, US_ASCII) + '\'' +
+                ", listener=" + listener +
+                '}';
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2017 Sascha Theves
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ * Modifications Copyright 2020 Codersparks
+ */
+
+
+package io.theves.denon4j;
+
+/**
+ * Handle of a registered event listener, see {@link DenonReceiver#addListener(String, io.theves.denon4j.net.EventListener)}.
+ */
+public interface ListenerRegistration extends AutoCloseable {
+
+    /**
+     * Removes the listener without searching the other listeners. Events already being dispatched may still reach
+     * it, later events do not. Removing twice has no effect.
+     */
+    void remove();
+
+    @Override
+    default void close() {
+        remove();
+    }
+}
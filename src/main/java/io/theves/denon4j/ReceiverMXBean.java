@@ -0,0 +1,106 @@
+/*
+ * Copyright 2017 Sascha Theves
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ * Modifications Copyright 2020 Codersparks
+ */
+
+
+
+package io.theves.denon4j;
+
+/**
+ * Management interface of a receiver, see {@link ReceiverMonitor#register(DenonReceiver, String)}.
+ */
+public interface ReceiverMXBean {
+
+    boolean isConnected();
+
+    /**
+     * @return the number of requests sent and waiting for their response.
+     */
+    int getPendingRequests();
+
+    /**
+     * @return the number of requests waiting for a free request slot.
+     */
+    int getQueuedRequests();
+
+    /**
+     * @return the number of commands waiting to be written.
+     */
+    int getOutboundQueueDepth();
+
+    int getListenerCount();
+
+    long getEventCount();
+
+    long getCommandCount();
+
+    /**
+     * @return the events per second, measured over windows of about a second, see {@link ReceiverMonitor}.
+     */
+    double getEventRate();
+
+    /**
+     * @return the commands per second, measured over windows of about a second, see {@link ReceiverMonitor}.
+     */
+    double getCommandRate();
+
+    long getTimeouts();
+
+    long getDroppedEvents();
+
+    double getLatencyP50Millis();
+
+    double getLatencyP99Millis();
+
+    double getLatencyP999Millis();
+
+    /**
+     * @return the milliseconds since the last event, <code>-1</code> if no event was received.
+     */
+    long getLastEventAgeMillis();
+
+    /**
+     * Queries the values of all controls again, see {@link DenonReceiver#sync(java.time.Duration)}.
+     *
+     * @param timeoutMillis the time to wait for the values.
+     * @return a summary of the values received and missing.
+     */
+    String resync(long timeoutMillis);
+
+    /**
+     * @return the most recent events, oldest first, each with the milliseconds since it was received.
+     */
+    String[] dumpRecentEvents();
+
+    /**
+     * Starts tracing requests, see {@link RequestTracer}.
+     *
+     * @param capacity the number of timelines to keep.
+     */
+    void enableTracing(int capacity);
+
+    void disableTracing();
+
+    /**
+     * @return the timelines of the traced requests, oldest first.
+     */
+    String[] dumpRequestTimelines();
+}
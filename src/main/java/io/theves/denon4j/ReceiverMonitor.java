@@ -0,0 +1,325 @@
+/*
+ * Copyright 2017 Sascha Theves
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ * Modifications Copyright 2020 Codersparks
+ */
+
+
+
+package io.theves.denon4j;
+
+import io.theves.denon4j.controls.AbstractControl;
+import io.theves.denon4j.net.Event;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.invoke.MethodHandles;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Exposes a receiver to JMX as <code>io.theves.denon4j:type=Receiver,name=...</code>. Attributes are computed
+ * when read, only the recent events are recorded into a fixed ring while the monitor is registered.
+ * <pre>
+ * try (ReceiverMonitor monitor = ReceiverMonitor.register(receiver, "living-room")) {
+ *     ...
+ * }
+ * </pre>
+ */
+public final class ReceiverMonitor implements ReceiverMXBean, AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    static final int RECENT_EVENTS = 64;
+    static final long RATE_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final DenonReceiver receiver;
+    private final ObjectName name;
+    private final MBeanServer server;
+    private final ListenerRegistration registration;
+    // the ring of recent events and when they were received, written without allocating
+    private final AtomicReferenceArray<Event> recentEvents = new AtomicReferenceArray<>(RECENT_EVENTS);
+    private final AtomicLongArray recentNanos = new AtomicLongArray(RECENT_EVENTS);
+    private final AtomicLong recorded = new AtomicLong();
+    private final Rate eventRate = new Rate(Stats::events);
+    private final Rate commandRate = new Rate(Stats::commands);
+
+    private ReceiverMonitor(DenonReceiver receiver, ObjectName name, MBeanServer server) {
+        this.receiver = receiver;
+        this.name = name;
+        this.server = server;
+        this.registration = receiver.addListener(this::record);
+    }
+
+    /**
+     * Registers a monitor of the receiver at the platform MBean server.
+     *
+     * @param receiver the receiver.
+     * @param name     the name of the receiver, e.g. its host.
+     * @return the monitor, close it to unregister.
+     * @throws IllegalStateException if the monitor could not be registered, e.g. the name is taken.
+     */
+    public static ReceiverMonitor register(DenonReceiver receiver, String name) {
+        return register(receiver, name, ManagementFactory.getPlatformMBeanServer());
+    }
+
+    /**
+     * Registers a monitor of the receiver.
+     *
+     * @param receiver the receiver.
+     * @param name     the name of the receiver, e.g. its host.
+     * @param server   the MBean server.
+     * @return the monitor, close it to unregister.
+     * @throws IllegalStateException if the monitor could not be registered, e.g. the name is taken.
+     */
+    public static ReceiverMonitor register(DenonReceiver receiver, String name, MBeanServer server) {
+        if (receiver == null || name == null || server == null) {
+            throw new IllegalArgumentException("Arguments must not be null");
+        }
+        ReceiverMonitor monitor;
+        try {
+            monitor = new ReceiverMonitor(receiver,
+                new ObjectName("io.theves.denon4j:type=Receiver,name=" + ObjectName.quote(name)), server);
+        } catch (JMException e) {
+            throw new IllegalStateException("Invalid name: " + name, e);
+        }
+        try {
+            server.registerMBean(monitor, monitor.name);
+        } catch (JMException e) {
+            monitor.registration.remove();
+            throw new IllegalStateException("Cannot register " + monitor.name, e);
+        }
+        return monitor;
+    }
+
+    public ObjectName getObjectName() {
+        return name;
+    }
+
+    private void record(Event event) {
+        int slot = (int) (recorded.getAndIncrement() % RECENT_EVENTS);
+        recentNanos.set(slot, System.nanoTime());
+        recentEvents.set(slot, event);
+    }
+
+    private Stats stats() {
+        Session session = receiver.getSession();
+        return session == null ? null : session.stats();
+    }
+
+    @Override
+    public boolean isConnected() {
+        return receiver.isConnected();
+    }
+
+    @Override
+    public int getPendingRequests() {
+        return receiver.pendingRequests();
+    }
+
+    @Override
+    public int getQueuedRequests() {
+        return receiver.queuedRequests();
+    }
+
+    @Override
+    public int getOutboundQueueDepth() {
+        return receiver.outboundStats().queueDepth();
+    }
+
+    @Override
+    public int getListenerCount() {
+        return receiver.getEventListeners().size();
+    }
+
+    @Override
+    public long getEventCount() {
+        Stats stats = stats();
+        return stats == null ? 0 : stats.events();
+    }
+
+    @Override
+    public long getCommandCount() {
+        Stats stats = stats();
+        return stats == null ? 0 : stats.commands();
+    }
+
+    @Override
+    public double getEventRate() {
+        return eventRate.perSecond(stats(), System.nanoTime());
+    }
+
+    @Override
+    public double getCommandRate() {
+        return commandRate.perSecond(stats(), System.nanoTime());
+    }
+
+    @Override
+    public long getTimeouts() {
+        Stats stats = stats();
+        return stats == null ? 0 : stats.timeouts();
+    }
+
+    @Override
+    public long getDroppedEvents() {
+        Stats stats = stats();
+        return stats == null ? 0 : stats.droppedEvents();
+    }
+
+    @Override
+    public double getLatencyP50Millis() {
+        return latencyMillis(50);
+    }
+
+    @Override
+    public double getLatencyP99Millis() {
+        return latencyMillis(99);
+    }
+
+    @Override
+    public double getLatencyP999Millis() {
+        return latencyMillis(99.9);
+    }
+
+    private double latencyMillis(double percentile) {
+        Stats stats = stats();
+        return stats == null ? 0 : stats.latency().percentile(percentile).toNanos() / 1e6;
+    }
+
+    @Override
+    public long getLastEventAgeMillis() {
+        Stats stats = stats();
+        Duration age = stats == null ? null : stats.sinceLastEvent();
+        return age == null ? -1 : age.toMillis();
+    }
+
+    @Override
+    public String resync(long timeoutMillis) {
+        StateSnapshot snapshot = receiver.sync(Duration.ofMillis(timeoutMillis));
+        String summary = snapshot.values().size() + " values in " + snapshot.duration().toMillis() + " ms";
+        if (snapshot.isComplete()) {
+            return summary;
+        }
+        return summary + ", missing: " + snapshot.missing().stream()
+            .map(AbstractControl::getName)
+            .collect(Collectors.joining(", "));
+    }
+
+    @Override
+    public String[] dumpRecentEvents() {
+        long end = recorded.get();
+        long now = System.nanoTime();
+        List<String> dump = new ArrayList<>(RECENT_EVENTS);
+        for (long i = Math.max(0, end - RECENT_EVENTS); i < end; i++) {
+            int slot = (int) (i % RECENT_EVENTS);
+            Event event = recentEvents.get(slot);
+            long nanos = recentNanos.get(slot);
+            if (recorded.get() - RECENT_EVENTS > i) {
+                // overwritten while dumping
+                continue;
+            }
+            if (event != null) {
+                dump.add(String.format("-%dms %s", Duration.ofNanos(now - nanos).toMillis(), event.asciiValue()));
+            }
+        }
+        return dump.toArray(new String[0]);
+    }
+
+    @Override
+    public void enableTracing(int capacity) {
+        receiver.tracer().enable(capacity);
+    }
+
+    @Override
+    public void disableTracing() {
+        receiver.tracer().disable();
+    }
+
+    @Override
+    public String[] dumpRequestTimelines() {
+        return receiver.tracer().timelines().stream().map(RequestTimeline::toString).toArray(String[]::new);
+    }
+
+    /**
+     * Stops recording events and unregisters the monitor.
+     */
+    @Override
+    public void close() {
+        registration.remove();
+        try {
+            server.unregisterMBean(name);
+        } catch (JMException e) {
+            logger.debug("Cannot unregister {}", name, e);
+        }
+    }
+
+    /**
+     * The rate of a counter over fixed windows of {@link #RATE_WINDOW_NANOS}. The counter is sampled by the first
+     * read in a window, all reads in the window return the rate between that sample and the one of the previous
+     * window, so readers do not affect each other.
+     */
+    static final class Rate {
+        private final ToLongFunction<Stats> counter;
+        // guarded by this
+        private Stats stats;
+        private long window;
+        private long sampleNanos;
+        private long sampleCount;
+        private double rate;
+
+        Rate(ToLongFunction<Stats> counter) {
+            this.counter = counter;
+        }
+
+        synchronized double perSecond(Stats current, long nanos) {
+            if (current == null) {
+                return 0;
+            }
+            long index = Math.floorDiv(nanos, RATE_WINDOW_NANOS);
+            if (current != stats) {
+                // first read or a new session, rate since the session started until the next window
+                long count = counter.applyAsLong(current);
+                long elapsed = current.duration().toNanos();
+                rate = elapsed > 0 ? count * 1e9 / elapsed : 0;
+                sample(current, index, nanos, count);
+            } else if (index != window) {
+                long count = counter.applyAsLong(current);
+                rate = nanos > sampleNanos ? (count - sampleCount) * 1e9 / (nanos - sampleNanos) : 0;
+                sample(current, index, nanos, count);
+            }
+            return rate;
+        }
+
+        private void sample(Stats current, long index, long nanos, long count) {
+            stats = current;
+            window = index;
+            sampleNanos = nanos;
+            sampleCount = count;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2017 Sascha Theves
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ * Modifications Copyright 2020 Codersparks
+ */
+
+
+package io.theves.denon4j;
+
+import io.theves.denon4j.controls.AbstractControl;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Last known values of the controls, maintained from the events the receiver sends.
+ * <p>
+ * The receiver reports every change on its own while connected, so getters may answer from this cache instead of
+ * querying the receiver. Values older than {@link #getMaxAge()} are queried again. The default max age of zero
+ * disables the cache.
+ */
+public final class ReceiverState {
+    private final ConcurrentMap<AbstractControl, Value<?>> values = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private volatile Duration maxAge = Duration.ZERO;
+
+    /**
+     * Sets how old a cached value may be to be returned by the getters of the controls.
+     *
+     * @param maxAge the max age, zero always queries the receiver.
+     */
+    public void setMaxAge(Duration maxAge) {
+        if (maxAge == null || maxAge.isNegative()) {
+            throw new IllegalArgumentException("maxAge must not be negative");
+        }
+        this.maxAge = maxAge;
+    }
+
+    public Duration getMaxAge() {
+        return maxAge;
+    }
+
+    /**
+     * The last known value of the control regardless of its age.
+     *
+     * @param control the control.
+     * @param <T>     the type of the value.
+     * @return the value or empty if unknown.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Optional<Value<T>> get(AbstractControl control) {
+        return Optional.ofNullable((Value<T>) values.get(control));
+    }
+
+    /**
+     * The value of the control if it is younger than the max age.
+     *
+     * @param control the control.
+     * @param <T>     the type of the value.
+     * @return the value or empty if it is unknown, stale or the cache is disabled.
+     */
+    public <T> Optional<T> fresh(AbstractControl control) {
+        Duration bound = maxAge;
+        if (bound.isZero()) {
+            return Optional.empty();
+        }
+        Optional<Value<T>> value = get(control);
+        if (value.isPresent() && value.get().isFresh(bound)) {
+            hits.increment();
+            return Optional.of(value.get().value());
+        }
+        misses.increment();
+        return Optional.empty();
+    }
+
+    public <T> void update(AbstractControl control, T value) {
+        values.put(control, new Value<>(Objects.requireNonNull(value)));
+    }
+
+    /**
+     * Forgets the value of the control, e.g. because a command changing it was sent.
+     *
+     * @param control the control.
+     */
+    public void invalidate(AbstractControl control) {
+        values.remove(control);
+    }
+
+    public void clear() {
+        values.clear();
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    /**
+     * @return the number of reads answered from the cache.
+     */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of reads that had to query the receiver.
+     */
+    public long misses() {
+        return misses.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "ReceiverState{" +
+            "values=" + values.size() +
+            ", maxAge=" + maxAge +
+            ", hits=" + hits.sum() +
+            ", misses=" + misses.sum() +
+            '}';
+    }
+
+    /**
+     * A cached value and the time it was last updated.
+     *
+     * @param <T> the type of the value.
+     */
+    public static final class Value<T> {
+        private final T value;
+        private final Instant updated;
+        private final long updatedNanos;
+
+        Value(T value) {
+            this.value = value;
+            this.updated = Instant.now();
+            this.updatedNanos = System.nanoTime();
+        }
+
+        public T value() {
+            return value;
+        }
+
+        public Instant updated() {
+            return updated;
+        }
+
+        public Duration age() {
+            return Duration.ofNanos(System.nanoTime() - updatedNanos);
+        }
+
+        long updatedNanos() {
+            return updatedNanos;
+        }
+
+        public boolean isFresh(Duration maxAge) {
+            return age().compareTo(maxAge) <= 0;
+        }
+
+        @Override
+        public String toString() {
+            return "Value{" + value + ", updated=" + updated + '}';
+        }
+    }
+}
@@ -1,59 +1,254 @@
 package io.theves.denon4j;
 
+import io.theves.denon4j.net.Command;
 import io.theves.denon4j.net.Event;
 
 import java.time.Duration;
-import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
 
 /**
  * Context when receiving a response.
  * Clients get this when {@link Condition#fulfilled(RecvContext)} is called.
+ * <p>
+ * The reader thread adds events while the response timeout or the sender may complete the request, the state is
+ * guarded by the monitor of the context and the first to complete it wins.
  *
  * @author stheves
  */
 public class RecvContext {
     private static final Duration NOT_STARTED = Duration.ofMillis(0L);
+    // bounds the memory of a request, no response of the receiver comes close
+    static final int MAX_CAPTURED = 256;
 
-    private Instant start;
-    private Instant end;
+    private long startNanos;
+    private long endNanos;
     private List<Event> received;
     private boolean receiving;
     private Condition condition;
+    private final Condition.Evaluation evaluation;
+    // null until evaluated
+    private Boolean fulfilled;
+    private final Command command;
+    // the prefixes of the events to capture, null to capture all
+    private final byte[][] prefixes;
+    private int overflow;
+    private final CompletableFuture<List<Event>> response = new CompletableFuture<>();
+    private volatile boolean done;
+    private volatile boolean onWire;
+    private List<Event> result;
+    private RuntimeException failure;
+    // null unless traced
+    private RequestTimeline timeline;
+    private long traceId;
+    // the response timeout, cancelled when the request ends
+    private volatile Future<?> expiry;
 
     RecvContext(Condition condition) {
-        this.start = Instant.now();
+        this(null, condition, null);
+    }
+
+    RecvContext(Command command, Condition condition, Collection<String> prefixes) {
+        this.startNanos = System.nanoTime();
         this.received = new ArrayList<>();
+        this.command = command;
         this.condition = condition;
+        this.evaluation = condition.evaluation();
+        this.prefixes = prefixes == null ? null : prefixes.stream().map(p -> p.getBytes(US_ASCII)).toArray(byte[][]::new);
     }
 
-    public List<Event> received() {
+    public synchronized List<Event> received() {
         return received;
     }
 
 
     void endReceive() {
         receiving = false;
-        end = Instant.now();
+        endNanos = System.nanoTime();
     }
 
     void beginReceive() {
         receiving = true;
-        start = Instant.now();
+        startNanos = System.nanoTime();
+        mark(RequestTimeline.Phase.STARTED);
+    }
+
+    void expireWith(Future<?> expiry) {
+        this.expiry = expiry;
+    }
+
+    void trace(RequestTimeline timeline) {
+        if (timeline != null) {
+            this.traceId = timeline.id();
+        }
+        this.timeline = timeline;
+    }
+
+    /**
+     * @return a copy of the timeline or <code>null</code> if not traced or no longer kept by the tracer.
+     */
+    RequestTimeline timeline() {
+        RequestTimeline t = timeline;
+        return t == null ? null : t.copy(traceId);
+    }
+
+    void mark(RequestTimeline.Phase phase) {
+        RequestTimeline t = timeline;
+        if (t != null) {
+            t.mark(traceId, phase);
+        }
     }
 
     public boolean isReceiving() {
         return receiving;
     }
 
-    public boolean fulfilled() {
-        return condition.fulfilled(this);
+    /**
+     * Checks whether the event may belong to the response of this request.
+     *
+     * @param event the received event.
+     * @return <code>true</code> if the command was written and this context captures all events or the event
+     * starts with one of its prefixes.
+     */
+    boolean accepts(Event event) {
+        if (!onWire || done) {
+            return false;
+        }
+        if (prefixes == null) {
+            return true;
+        }
+        for (byte[] prefix : prefixes) {
+            if (event.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Marks the command as written, events received before cannot belong to the response.
+     */
+    void onWire() {
+        onWire = true;
+        mark(RequestTimeline.Phase.WRITING);
+    }
+
+    boolean isOnWire() {
+        return onWire;
+    }
+
+    /**
+     * @return <code>true</code> if the request was completed or failed.
+     */
+    boolean ended() {
+        return done;
+    }
+
+    Command command() {
+        return command;
+    }
+
+    /**
+     * Ends this request with what has been received so far.
+     *
+     * @return <code>false</code> if the request already ended.
+     */
+    synchronized boolean complete() {
+        if (done) {
+            return false;
+        }
+        done = true;
+        endReceive();
+        result = new ArrayList<>(received);
+        return true;
+    }
+
+    /**
+     * Ends this request with a failure.
+     *
+     * @param e the cause.
+     * @return <code>false</code> if the request already ended.
+     */
+    synchronized boolean fail(RuntimeException e) {
+        if (done) {
+            return false;
+        }
+        done = true;
+        endReceive();
+        failure = e;
+        return true;
+    }
+
+    /**
+     * Completes the response future. Must be invoked after {@link #complete()} or {@link #fail(RuntimeException)}
+     * and outside of any lock, because dependent stages run synchronously.
+     */
+    void publish() {
+        Future<?> timeout = expiry;
+        if (timeout != null) {
+            timeout.cancel(false);
+        }
+        mark(RequestTimeline.Phase.COMPLETED);
+        if (failure != null) {
+            response.completeExceptionally(failure);
+        } else {
+            response.complete(result);
+        }
+    }
+
+    CompletableFuture<List<Event>> response() {
+        return response;
+    }
+
+    /**
+     * Adds a received event to the response and updates the condition with it.
+     *
+     * @param event the received event.
+     * @return <code>true</code> if the condition is fulfilled, <code>false</code> if not or if the request ended.
+     */
+    synchronized boolean add(Event event) {
+        if (done) {
+            return false;
+        }
+        if (received.size() >= MAX_CAPTURED) {
+            overflow++;
+            return fulfilled();
+        }
+        received.add(event);
+        mark(RequestTimeline.Phase.FIRST_EVENT);
+        fulfilled = evaluation.update(this, event);
+        if (fulfilled) {
+            mark(RequestTimeline.Phase.FULFILLED);
+        }
+        return fulfilled;
+    }
+
+    public synchronized boolean fulfilled() {
+        if (fulfilled == null) {
+            fulfilled = evaluation.update(this, null);
+            if (fulfilled) {
+                mark(RequestTimeline.Phase.FULFILLED);
+            }
+        }
+        return fulfilled;
+    }
+
+    /**
+     * @return the number of accepted events that were not captured because the response reached
+     * {@link #MAX_CAPTURED} events.
+     */
+    synchronized int overflow() {
+        return overflow;
     }
 
-    public Duration duration() {
-        if (end != null && start != null) {
-            return Duration.between(start, end);
+    public synchronized Duration duration() {
+        if (endNanos != 0) {
+            return Duration.ofNanos(endNanos - startNanos);
         }
         return NOT_STARTED;
     }
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2017 Sascha Theves
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ * Modifications Copyright 2020 Codersparks
+ */
+
+
+
+package io.theves.denon4j;
+
+import io.theves.denon4j.net.Command;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The timestamps of the phases of one request, see {@link RequestTracer}. Phases are marked by the threads
+ * involved, a phase not reached, e.g. {@link Phase#FULFILLED} of a request that timed out, has no timestamp.
+ * <p>
+ * The tracer reuses its timelines for later requests, it hands out copies.
+ */
+public final class RequestTimeline {
+
+    public enum Phase {
+        /**
+         * The request was submitted.
+         */
+        ENQUEUED,
+        /**
+         * The request got a request slot and was handed to the protocol.
+         */
+        STARTED,
+        /**
+         * The transport took the command from its outbound queue to write it, or the command was handed to a
+         * protocol that does not report writes.
+         */
+        WRITING,
+        /**
+         * The transport wrote the command to the socket, or a protocol that does not report writes returned.
+         */
+        WRITTEN,
+        /**
+         * The first event of the response was captured.
+         */
+        FIRST_EVENT,
+        /**
+         * The condition of the request was fulfilled.
+         */
+        FULFILLED,
+        /**
+         * The response was completed, by its condition or the response timeout.
+         */
+        COMPLETED,
+        /**
+         * The waiting caller returned.
+         */
+        WOKEN
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+
+    // the request using this timeline, changed first when it is reused
+    private volatile long id;
+    private volatile Command command;
+    // zero until the phase is reached
+    private final AtomicLongArray nanos = new AtomicLongArray(PHASES.length);
+
+    /**
+     * Creates an unused timeline of the tracer's ring.
+     */
+    RequestTimeline() {
+        this.id = -1;
+    }
+
+    /**
+     * Starts the timeline of another request.
+     *
+     * @param id      the id of the request, unique for the tracer.
+     * @param command the command of the request.
+     */
+    void reuse(long id, Command command) {
+        this.id = id;
+        for (int i = 0; i < PHASES.length; i++) {
+            nanos.set(i, 0);
+        }
+        this.command = command;
+        mark(id, Phase.ENQUEUED);
+    }
+
+    long id() {
+        return id;
+    }
+
+    /**
+     * Marks the phase of the request, only the first mark counts. Ignored once the timeline was reused.
+     */
+    void mark(long requestId, Phase phase) {
+        int i = phase.ordinal();
+        if (requestId == id && nanos.get(i) == 0) {
+            nanos.compareAndSet(i, 0, System.nanoTime());
+        }
+    }
+
+    /**
+     * Copies the timeline of the request.
+     *
+     * @return the copy or <code>null</code> if the timeline was reused or is unused.
+     */
+    RequestTimeline copy(long requestId) {
+        if (requestId < 0 || requestId != id) {
+            return null;
+        }
+        RequestTimeline copy = new RequestTimeline();
+        copy.command = command;
+        for (int i = 0; i < PHASES.length; i++) {
+            copy.nanos.set(i, nanos.get(i));
+        }
+        copy.id = requestId;
+        // reused while copying
+        return requestId == id ? copy : null;
+    }
+
+    public Command command() {
+        return command;
+    }
+
+    /**
+     * Returns the time from submitting the request until the phase.
+     *
+     * @param phase the phase.
+     * @return the elapsed time or <code>null</code> if the phase was not reached.
+     */
+    public Duration elapsed(Phase phase) {
+        long at = nanos.get(phase.ordinal());
+        if (at == 0) {
+            return null;
+        }
+        return Duration.ofNanos(at - nanos.get(Phase.ENQUEUED.ordinal()));
+    }
+
+    /**
+     * @return <code>true</code> if the response was completed.
+     */
+    public boolean isCompleted() {
+        return nanos.get(Phase.COMPLETED.ordinal()) != 0;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder timeline = new StringBuilder(command.signature());
+        for (Phase phase : PHASES) {
+            if (phase == Phase.ENQUEUED) {
+                continue;
+            }
+            Duration elapsed = elapsed(phase);
+            timeline.append(' ').append(phase.name().toLowerCase()).append('=');
+            if (elapsed == null) {
+                timeline.append('-');
+            } else {
+                timeline.append(String.format(Locale.ROOT, "%.3fms", elapsed.toNanos() / 1e6));
+            }
+        }
+        return timeline.toString();
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2017 Sascha Theves
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ * Modifications Copyright 2020 Codersparks
+ */
+
+
+
+package io.theves.denon4j;
+
+import io.theves.denon4j.net.Command;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Opt-in tracing of the phases of requests, e.g. to learn why a request timed out. While enabled, the timelines of
+ * the last requests are kept in a preallocated ring of fixed capacity, including those still waiting for their
+ * response. Tracing a request reuses the oldest timeline of the ring, a request older than the ring stops being
+ * traced. While disabled, tracing costs one volatile read per request.
+ * <pre>
+ * receiver.tracer().enable(100);
+ * ...
+ * receiver.tracer().timelines().forEach(System.out::println);
+ * </pre>
+ */
+public final class RequestTracer {
+    private volatile Ring ring;
+
+    /**
+     * Starts tracing, the timelines traced so far are discarded.
+     *
+     * @param capacity the number of timelines to keep.
+     */
+    public void enable(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be >= 1");
+        }
+        ring = new Ring(capacity);
+    }
+
+    /**
+     * Stops tracing and discards the timelines.
+     */
+    public void disable() {
+        ring = null;
+    }
+
+    public boolean isEnabled() {
+        return ring != null;
+    }
+
+    /**
+     * Starts the timeline of a request if tracing is enabled.
+     *
+     * @param command the command of the request.
+     * @return the timeline or <code>null</code> if tracing is disabled.
+     */
+    RequestTimeline start(Command command) {
+        Ring r = ring;
+        if (r == null) {
+            return null;
+        }
+        return r.next(command);
+    }
+
+    /**
+     * @return copies of the kept timelines, oldest first.
+     */
+    public List<RequestTimeline> timelines() {
+        Ring r = ring;
+        return r == null ? new ArrayList<>() : r.timelines();
+    }
+
+    private static final class Ring {
+        private final RequestTimeline[] slots;
+        private final AtomicLong next = new AtomicLong();
+
+        Ring(int capacity) {
+            slots = new RequestTimeline[capacity];
+            for (int i = 0; i < capacity; i++) {
+                slots[i] = new RequestTimeline();
+            }
+        }
+
+        RequestTimeline next(Command command) {
+            long id = next.getAndIncrement();
+            RequestTimeline timeline = slots[(int) (id % slots.length)];
+            timeline.reuse(id, command);
+            return timeline;
+        }
+
+        List<RequestTimeline> timelines() {
+            long end = next.get();
+            List<RequestTimeline> timelines = new ArrayList<>(slots.length);
+            for (long i = Math.max(0, end - slots.length); i < end; i++) {
+                RequestTimeline timeline = slots[(int) (i % slots.length)].copy(i);
+                if (timeline != null) {
+                    timelines.add(timeline);
+                }
+            }
+            return timelines;
+        }
+    }
+}
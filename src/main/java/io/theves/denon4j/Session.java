@@ -22,24 +22,42 @@ package io.theves.denon4j;
 import io.theves.denon4j.net.Event;
 import io.theves.denon4j.net.EventListener;
 
+import java.time.Duration;
+
 public class Session implements EventListener {
     private final Stats stats;
+    private final ListenerRegistration registration;
+    private volatile Duration startupTime;
 
     public Session(DenonReceiver receiver) {
-        receiver.addListener(this);
         stats = new Stats();
+        registration = receiver.addListener(this);
     }
 
     @Override
     public void received(Event event) {
-        stats.incrementEvents();
+        stats.received(event);
     }
 
     public Stats stats() {
         return stats;
     }
 
-    public void finish() {
+    /**
+     * The time it took to connect and synchronize the state, see {@link DenonReceiver#connect(int, Duration)}.
+     *
+     * @return the startup time or <code>null</code> if the state was not synchronized on connect.
+     */
+    public Duration startupTime() {
+        return startupTime;
+    }
 
+    void startupCompleted(Duration startupTime) {
+        this.startupTime = startupTime;
+    }
+
+    public void finish() {
+        // a reconnect starts a new session
+        registration.remove();
     }
 }
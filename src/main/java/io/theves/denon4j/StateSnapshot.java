@@ -0,0 +1,89 @@
+/*
+ * Copyright 2017 Sascha Theves
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ * Modifications Copyright 2020 Codersparks
+ */
+
+
+package io.theves.denon4j;
+
+import io.theves.denon4j.controls.AbstractControl;
+
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * The values of the controls collected by {@link DenonReceiver#sync(Duration)}.
+ */
+public final class StateSnapshot {
+    private final Map<AbstractControl, ReceiverState.Value<String>> values;
+    private final List<AbstractControl> missing;
+    private final Duration duration;
+
+    StateSnapshot(Map<AbstractControl, ReceiverState.Value<String>> values, List<AbstractControl> missing,
+                  Duration duration) {
+        this.values = Collections.unmodifiableMap(new LinkedHashMap<>(values));
+        this.missing = Collections.unmodifiableList(new ArrayList<>(missing));
+        this.duration = duration;
+    }
+
+    /**
+     * The value of the control.
+     *
+     * @param control the control.
+     * @return the value or empty if the receiver did not report it before the deadline.
+     */
+    public Optional<String> get(AbstractControl control) {
+        return Optional.ofNullable(values.get(control)).map(ReceiverState.Value::value);
+    }
+
+    /**
+     * @return the collected values by control, in the order the controls were created.
+     */
+    public Map<AbstractControl, ReceiverState.Value<String>> values() {
+        return values;
+    }
+
+    /**
+     * @return the controls whose value was not reported before the deadline.
+     */
+    public List<AbstractControl> missing() {
+        return missing;
+    }
+
+    public boolean isComplete() {
+        return missing.isEmpty();
+    }
+
+    /**
+     * @return the time it took to collect the values.
+     */
+    public Duration duration() {
+        return duration;
+    }
+
+    @Override
+    public String toString() {
+        return "StateSnapshot{" +
+            "values=" + values.size() +
+            ", missing=" + missing.size() +
+            ", duration=" + duration +
+            '}';
+    }
+}
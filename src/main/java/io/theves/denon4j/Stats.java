@@ -19,25 +19,247 @@
 
 package io.theves.denon4j;
 
+import io.theves.denon4j.net.Command;
+import io.theves.denon4j.net.Event;
+
 import java.io.PrintStream;
 import java.io.PrintWriter;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Metrics of a session. Counters are striped, so the reader, the writer and callers count without contention,
+ * and reading them never blocks counting. Events, commands and request latencies are also counted per two letter
+ * prefix, e.g. <code>MV</code>, other prefixes are counted as <code>*</code>.
+ */
 public class Stats {
-    private int eventCounter = 0;
-    private Instant begin;
+    private static final int LETTERS = 26;
+    private static final int OTHER = LETTERS * LETTERS;
+
+    private final Instant begin;
+    private final LongAdder events = new LongAdder();
+    private final LongAdder commands = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder droppedEvents = new LongAdder();
+    private final AtomicLong capturedEvents = new AtomicLong();
+    private final AtomicLong uncapturedEvents = new AtomicLong();
+    private final AtomicLong responses = new AtomicLong();
+    private final AtomicLong maxResponseSize = new AtomicLong();
+    private final AtomicLong overflowEvents = new AtomicLong();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final AtomicReferenceArray<PrefixCounters> prefixes = new AtomicReferenceArray<>(OTHER + 1);
+    private volatile long lastEventNanos;
+    private volatile boolean anyEvent;
 
     public Stats() {
         begin = Instant.now();
     }
 
     public int eventCounter() {
-        return eventCounter;
+        return (int) events.sum();
     }
 
     public void incrementEvents() {
-        eventCounter++;
+        events.increment();
+    }
+
+    /**
+     * Counts a received event.
+     *
+     * @param event the event.
+     */
+    void received(Event event) {
+        lastEventNanos = System.nanoTime();
+        if (!anyEvent) {
+            anyEvent = true;
+        }
+        events.increment();
+        // the receiver terminates every event with CR
+        bytesIn.add(event.length() + 1L);
+        int b0 = event.length() > 0 ? event.byteAt(0) : 0;
+        int b1 = event.length() > 1 ? event.byteAt(1) : 0;
+        prefix(b0, b1).events.increment();
+    }
+
+    /**
+     * Counts a command written to the receiver.
+     *
+     * @param command the command.
+     */
+    void sent(Command command) {
+        commands.increment();
+        bytesOut.add(command.signature().length() + 1L);
+        prefix(command.getPrefix()).commands.increment();
+    }
+
+    /**
+     * Counts a completed request, requests completed without fulfilling their condition are timeouts.
+     *
+     * @param ctx the completed request.
+     */
+    void response(RecvContext ctx) {
+        int size = ctx.received().size();
+        responses.incrementAndGet();
+        maxResponseSize.accumulateAndGet(size, Math::max);
+        overflowEvents.addAndGet(ctx.overflow());
+        long nanos = ctx.duration().toNanos();
+        latency.record(nanos);
+        PrefixCounters counters = ctx.command() == null ? null : prefix(ctx.command().getPrefix());
+        if (counters != null) {
+            counters.latency.record(nanos);
+        }
+        if (!ctx.fulfilled()) {
+            timeouts.increment();
+            if (counters != null) {
+                counters.timeouts.increment();
+            }
+        }
+    }
+
+    /**
+     * Counts an event received while requests were pending.
+     *
+     * @param captured whether a pending request captured the event as part of its response.
+     */
+    void captured(boolean captured) {
+        (captured ? capturedEvents : uncapturedEvents).incrementAndGet();
+    }
+
+    /**
+     * Counts events a subscriber did not receive because its queue was full.
+     *
+     * @param count the number of dropped events.
+     */
+    void dropped(long count) {
+        droppedEvents.add(count);
+    }
+
+    private PrefixCounters prefix(String prefix) {
+        return prefix(prefix.length() > 0 ? prefix.charAt(0) : 0, prefix.length() > 1 ? prefix.charAt(1) : 0);
+    }
+
+    private PrefixCounters prefix(int c0, int c1) {
+        int slot = isLetter(c0) && isLetter(c1) ? (c0 - 'A') * LETTERS + c1 - 'A' : OTHER;
+        PrefixCounters counters = prefixes.get(slot);
+        if (counters == null) {
+            prefixes.compareAndSet(slot, null, new PrefixCounters());
+            counters = prefixes.get(slot);
+        }
+        return counters;
+    }
+
+    private static boolean isLetter(int c) {
+        return c >= 'A' && c <= 'Z';
+    }
+
+    /**
+     * @return the number of received events.
+     */
+    public long events() {
+        return events.sum();
+    }
+
+    /**
+     * @return the number of commands written to the receiver.
+     */
+    public long commands() {
+        return commands.sum();
+    }
+
+    public long bytesIn() {
+        return bytesIn.sum();
+    }
+
+    public long bytesOut() {
+        return bytesOut.sum();
+    }
+
+    /**
+     * @return the number of requests that completed without fulfilling their condition.
+     */
+    public long timeouts() {
+        return timeouts.sum();
+    }
+
+    /**
+     * @return the number of events publishers dropped or conflated because a subscriber did not keep up.
+     */
+    public long droppedEvents() {
+        return droppedEvents.sum();
+    }
+
+    /**
+     * @return the number of events captured as part of a response.
+     */
+    public long capturedEvents() {
+        return capturedEvents.get();
+    }
+
+    /**
+     * @return the number of events received while requests were pending that did not belong to any of them.
+     */
+    public long uncapturedEvents() {
+        return uncapturedEvents.get();
+    }
+
+    public long responses() {
+        return responses.get();
+    }
+
+    /**
+     * @return the largest number of events captured for one response.
+     */
+    public long maxResponseSize() {
+        return maxResponseSize.get();
+    }
+
+    /**
+     * @return the number of events not captured because a response reached its maximum size.
+     */
+    public long overflowEvents() {
+        return overflowEvents.get();
+    }
+
+    /**
+     * The time from sending requests until their responses were complete.
+     *
+     * @return the latency of all requests.
+     */
+    public Latency latency() {
+        return new Latency(latency);
+    }
+
+    /**
+     * Takes a snapshot of the metrics by prefix, only prefixes seen are included.
+     *
+     * @return the metrics by prefix in alphabetical order, <code>*</code> last.
+     */
+    public Map<String, PrefixStats> prefixes() {
+        Map<String, PrefixStats> snapshot = new LinkedHashMap<>();
+        for (int slot = 0; slot <= OTHER; slot++) {
+            PrefixCounters counters = prefixes.get(slot);
+            if (counters != null) {
+                String prefix = slot == OTHER ? "*"
+                    : new String(new char[]{(char) ('A' + slot / LETTERS), (char) ('A' + slot % LETTERS)});
+                snapshot.put(prefix, new PrefixStats(prefix, counters));
+            }
+        }
+        return Collections.unmodifiableMap(snapshot);
+    }
+
+    /**
+     * @return the time since the last event was received, <code>null</code> if none was received.
+     */
+    public Duration sinceLastEvent() {
+        return anyEvent ? Duration.ofNanos(System.nanoTime() - lastEventNanos) : null;
     }
 
     public Duration duration() {
@@ -47,8 +269,140 @@ public class Stats {
     public void print(PrintStream out) {
         PrintWriter writer = new PrintWriter(out);
         writer.printf("Session Stats:%n");
-        writer.printf(" Events: %-20d%n", eventCounter);
+        writer.printf(" Events: %-20d%n", events());
         writer.printf(" Time:   %-20s%n", duration().toString());
+        writer.printf(" Commands: %d, bytes in: %d, bytes out: %d, dropped events: %d%n",
+            commands(), bytesIn(), bytesOut(), droppedEvents());
+        writer.printf(" Responses: %d (max. %d events), captured: %d, not captured: %d, overflow: %d, timeouts: %d%n",
+            responses(), maxResponseSize(), capturedEvents(), uncapturedEvents(), overflowEvents(), timeouts());
+        writer.printf(" Latency: %s%n", latency());
+        prefixes().values().forEach(prefix -> writer.printf("  %s%n", prefix));
         writer.flush();
     }
+
+    private static final class PrefixCounters {
+        private final LongAdder events = new LongAdder();
+        private final LongAdder commands = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+    }
+
+    /**
+     * Snapshot of a latency histogram.
+     */
+    public static final class Latency {
+        private final long[] counts;
+        private final long count;
+        private final long max;
+
+        Latency(LatencyHistogram histogram) {
+            this.counts = histogram.counts();
+            long sum = 0;
+            for (long c : counts) {
+                sum += c;
+            }
+            this.count = sum;
+            this.max = histogram.max();
+        }
+
+        /**
+         * @return the number of recorded requests.
+         */
+        public long count() {
+            return count;
+        }
+
+        /**
+         * Returns the latency not exceeded by the given share of requests.
+         *
+         * @param percentile the percentile between 0 and 100, e.g. 99.9.
+         * @return the latency, zero if nothing was recorded.
+         */
+        public Duration percentile(double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("percentile must be between 0 and 100");
+            }
+            if (count == 0) {
+                return Duration.ZERO;
+            }
+            long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Duration.ofNanos(Math.min(LatencyHistogram.upperBound(i), max));
+                }
+            }
+            return Duration.ofNanos(max);
+        }
+
+        public Duration p50() {
+            return percentile(50);
+        }
+
+        public Duration p99() {
+            return percentile(99);
+        }
+
+        public Duration p999() {
+            return percentile(99.9);
+        }
+
+        public Duration max() {
+            return Duration.ofNanos(max);
+        }
+
+        @Override
+        public String toString() {
+            return "n=" + count + " p50=" + p50() + " p99=" + p99() + " p999=" + p999() + " max=" + max();
+        }
+    }
+
+    /**
+     * Snapshot of the metrics of one prefix.
+     */
+    public static final class PrefixStats {
+        private final String prefix;
+        private final long eventsIn;
+        private final long commandsOut;
+        private final long timeouts;
+        private final Latency latency;
+
+        private PrefixStats(String prefix, PrefixCounters counters) {
+            this.prefix = prefix;
+            this.eventsIn = counters.events.sum();
+            this.commandsOut = counters.commands.sum();
+            this.timeouts = counters.timeouts.sum();
+            this.latency = new Latency(counters.latency);
+        }
+
+        public String prefix() {
+            return prefix;
+        }
+
+        public long eventsIn() {
+            return eventsIn;
+        }
+
+        public long commandsOut() {
+            return commandsOut;
+        }
+
+        public long timeouts() {
+            return timeouts;
+        }
+
+        /**
+         * @return the latency of the requests with this prefix.
+         */
+        public Latency latency() {
+            return latency;
+        }
+
+        @Override
+        public String toString() {
+            return prefix + ": events in=" + eventsIn + ", commands out=" + commandsOut + ", timeouts=" + timeouts +
+                ", latency " + latency;
+        }
+    }
 }
@@ -26,6 +26,10 @@ import io.theves.denon4j.net.EventListener;
 
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
 
 /**
  * Base class for controls that handles requests/responses.
@@ -34,45 +38,104 @@ import java.util.Objects;
  */
 public abstract class AbstractControl implements EventListener {
     private final String commandPrefix;
+    private final byte[] commandPrefixBytes;
     private final DenonReceiver receiver;
     private String name;
 
     public AbstractControl(DenonReceiver receiver, String commandPrefix) {
         this.commandPrefix = Objects.requireNonNull(commandPrefix);
+        this.commandPrefixBytes = commandPrefix.getBytes(US_ASCII);
         this.receiver = receiver;
     }
 
     protected final void send(String param) {
+        receiver.state().invalidate(this);
         receiver.send(commandPrefix + param);
     }
 
+    protected final CompletableFuture<Void> sendAsync(String param) {
+        receiver.state().invalidate(this);
+        return receiver.sendAsync(commandPrefix + param);
+    }
+
+    /**
+     * The cached value of this control if it is fresh enough, see {@link io.theves.denon4j.ReceiverState}.
+     *
+     * @return the value or empty if the receiver must be queried.
+     */
+    protected final Optional<String> cachedState() {
+        return receiver.state().fresh(this);
+    }
+
     protected final Event sendRequest(String regex) {
-        return receiver.send(getCommandPrefix() + "?", regex);
+        return receiver.send(getCommandPrefix() + "?", regex, getCommandPrefix());
     }
 
     protected final Event sendRequest() {
         return sendRequest(getCommandPrefix() + ".*");
     }
 
+    protected final CompletableFuture<Event> sendRequestAsync(String regex) {
+        return receiver.sendAsync(getCommandPrefix() + "?", regex, getCommandPrefix());
+    }
+
+    protected final CompletableFuture<Event> sendRequestAsync() {
+        return sendRequestAsync(getCommandPrefix() + ".*");
+    }
+
     final List<Event> sendAndReceive(String param, Condition condition) {
-        return receiver.send(getCommandPrefix() + param, condition);
+        return receiver.send(getCommandPrefix() + param, condition, getCommandPrefix());
+    }
+
+    final CompletableFuture<List<Event>> sendAndReceiveAsync(String param, Condition condition) {
+        return receiver.sendAsync(getCommandPrefix() + param, condition, getCommandPrefix());
     }
 
     @Override
     public final void received(Event event) {
         if (shouldHandle(event)) {
+            String state = stateOf(event);
+            if (state != null) {
+                receiver.state().update(this, state);
+            }
             doHandle(event);
         }
     }
 
     private boolean shouldHandle(Event event) {
-        return event.asciiValue().startsWith(getCommandPrefix());
+        return event.startsWith(commandPrefixBytes);
     }
 
     protected void doHandle(Event event) {
         // subclasses may override
     }
 
+    /**
+     * The command that queries the value of this control, see {@link #stateOf(Event)}.
+     *
+     * @return the command or <code>null</code> if this control has no value.
+     */
+    public String stateQuery() {
+        return null;
+    }
+
+    /**
+     * Forgets state tracked from events, invoked when a connection is established.
+     */
+    public void reset() {
+        // subclasses may override
+    }
+
+    /**
+     * Extracts the value of this control from an event starting with the command prefix.
+     *
+     * @param event the received event.
+     * @return the value as returned by the getter of this control or <code>null</code> if the event carries none.
+     */
+    protected String stateOf(Event event) {
+        return null;
+    }
+
     public String getCommandPrefix() {
         return commandPrefix;
     }
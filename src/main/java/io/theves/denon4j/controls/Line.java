@@ -23,7 +23,6 @@ package io.theves.denon4j.controls;
 import io.theves.denon4j.net.Event;
 
 import java.nio.charset.Charset;
-import java.util.Arrays;
 
 /**
  * Class description.
@@ -39,15 +38,14 @@ public class Line implements Comparable<Line> {
     private int index;
 
     public Line(Event raw, Charset charset) {
-        this.displayLine = new String(Arrays.copyOfRange(raw.getRaw(), 4, raw.getRaw().length), charset);
-        this.index = Integer.parseInt(Character.toString((char) raw.getRaw()[3]));
+        this.displayLine = raw.decode(4, charset);
+        this.index = Integer.parseInt(Character.toString((char) raw.byteAt(3)));
         parseDataByte(raw);
     }
 
     private void parseDataByte(Event event) {
-        byte[] raw = event.getRaw();
-        if (raw.length > 4 && isDataByte(raw[4])) {
-            byte data = raw[4];
+        if (event.length() > 4 && isDataByte(event.byteAt(4))) {
+            byte data = event.byteAt(4);
             // data byte available
             playable = isSet(data, 0);
             directory = isSet(data, 1);
@@ -19,10 +19,12 @@
 
 package io.theves.denon4j.controls;
 
+import io.theves.denon4j.Condition;
 import io.theves.denon4j.DenonReceiver;
 import io.theves.denon4j.net.Event;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static io.theves.denon4j.Condition.*;
 import static java.nio.charset.StandardCharsets.US_ASCII;
@@ -67,6 +69,10 @@ public class NetUsbIPodControl extends AbstractControl {
         return readOnscreenInfo();
     }
 
+    public CompletableFuture<OsdInfoList> getDisplayAsync() {
+        return sendAndReceiveAsync(model(), displayCondition()).thenApply(this::toOsdInfoList);
+    }
+
 
     public void cursorUp() {
         send(CURSOR_UP);
@@ -155,10 +161,16 @@ public class NetUsbIPodControl extends AbstractControl {
     }
 
     private OsdInfoList readOnscreenInfo() {
+        return toOsdInfoList(sendAndReceive(model(), displayCondition()));
+    }
+
+    private Condition displayCondition() {
+        // match by regex and response size
+        return allMatch(regex("NS" + model() + ".*"), size(9));
+    }
+
+    private OsdInfoList toOsdInfoList(List<Event> received) {
         OsdInfoList osdInfoList = new OsdInfoList(europeModel ? UTF_8 : US_ASCII);
-        List<Event> received = sendAndReceive(model(),
-            // match by regex and response size
-            allMatch(regex("NS" + model() + ".*"), size(9)));
         received.forEach(osdInfoList::addEvent);
         return osdInfoList;
     }
@@ -22,6 +22,8 @@ package io.theves.denon4j.controls;
 import io.theves.denon4j.DenonReceiver;
 import io.theves.denon4j.net.Event;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Can be used to set different settings of the receiver.
  *
@@ -43,12 +45,43 @@ public class Setting extends AbstractControl {
     }
 
     /**
-     * The setting`s value.
+     * The setting`s value, the response without its two character command, e.g. <code>ANAUTO</code> for the
+     * tuner mode <code>TMANAUTO</code>.
      *
      * @return the value.
      */
     public String get() {
-        Event received = sendRequest();
-        return received.asciiValue().substring(2);
+        return toValue(cachedState().orElseGet(() -> stateOf(sendRequest())));
+    }
+
+    /**
+     * Asynchronous variant of {@link #get()}.
+     *
+     * @return the future value.
+     */
+    public CompletableFuture<String> getAsync() {
+        return cachedState()
+            .map(CompletableFuture::completedFuture)
+            .orElseGet(() -> sendRequestAsync().thenApply(this::stateOf))
+            .thenApply(this::toValue);
+    }
+
+    @Override
+    public String stateQuery() {
+        return getCommandPrefix() + "?";
+    }
+
+    /**
+     * The cached state is the response without the whole prefix of this setting, e.g. <code>AUTO</code> for
+     * <code>TMANAUTO</code>.
+     */
+    @Override
+    protected String stateOf(Event event) {
+        return event.asciiValue().substring(getCommandPrefix().length());
+    }
+
+    private String toValue(String state) {
+        // the getters keep returning what they did before the state was cached
+        return getCommandPrefix().substring(2) + state;
     }
 }
@@ -20,6 +20,9 @@
 package io.theves.denon4j.controls;
 
 import io.theves.denon4j.DenonReceiver;
+import io.theves.denon4j.net.Event;
+
+import java.util.concurrent.CompletableFuture;
 
 import static java.lang.String.format;
 
@@ -33,7 +36,23 @@ public class SleepTimer extends AbstractControl {
     }
 
     public String getTimer() {
-        return sendRequest().asciiValue().substring(3);
+        return cachedState().orElseGet(() -> stateOf(sendRequest()));
+    }
+
+    public CompletableFuture<String> getTimerAsync() {
+        return cachedState()
+            .map(CompletableFuture::completedFuture)
+            .orElseGet(() -> sendRequestAsync().thenApply(this::stateOf));
+    }
+
+    @Override
+    public String stateQuery() {
+        return getCommandPrefix() + "?";
+    }
+
+    @Override
+    protected String stateOf(Event event) {
+        return event.asciiValue().substring(3);
     }
 
     public void off() {
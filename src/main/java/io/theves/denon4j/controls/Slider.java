@@ -21,15 +21,27 @@ package io.theves.denon4j.controls;
 
 import io.theves.denon4j.DenonReceiver;
 
+import java.util.concurrent.CompletableFuture;
 
 /**
  * A slider on the receiver e.g. the master volume slider.
+ * <p>
+ * Slider commands are coalesced: at most one command per slider waits to be written and a newer value replaces
+ * it, so a fast stream of values only sends the latest one once the previous command was written. Note that
+ * this also applies to {@link #slideUp()} and {@link #slideDown()}, repeated steps collapse while one is pending.
+ * Reading the value waits until the latest value was sent.
  *
  * @author stheves
  */
 public class Slider extends Setting {
     private final String up;
     private final String down;
+    // the latest value that has not been sent yet, guarded by this
+    private String latest;
+    // whether a command of this slider is on its way to the receiver, guarded by this
+    private boolean sending;
+    // completed once no value is waiting or being sent, guarded by this
+    private CompletableFuture<Void> flushed = CompletableFuture.completedFuture(null);
 
     public Slider(DenonReceiver receiver, String prefix, String up, String down) {
         super(receiver, prefix);
@@ -37,11 +49,75 @@ public class Slider extends Setting {
         this.down = down;
     }
 
+    @Override
+    public void set(String value) {
+        sendLatest(value);
+    }
+
     public void slideUp() {
-        send(up);
+        sendLatest(up);
     }
 
     public void slideDown() {
-        send(down);
+        sendLatest(down);
+    }
+
+    @Override
+    public String get() {
+        flushed().join();
+        return super.get();
+    }
+
+    @Override
+    public CompletableFuture<String> getAsync() {
+        return flushed().thenCompose(ignored -> super.getAsync());
+    }
+
+    /**
+     * Completed once the latest value set on this slider was sent.
+     *
+     * @return the future.
+     */
+    protected final synchronized CompletableFuture<Void> flushed() {
+        return flushed;
+    }
+
+    private void sendLatest(String param) {
+        synchronized (this) {
+            latest = param;
+            if (sending) {
+                return;
+            }
+            sending = true;
+            flushed = new CompletableFuture<>();
+        }
+        sendNext();
+    }
+
+    private void sendNext() {
+        String param;
+        CompletableFuture<Void> done;
+        synchronized (this) {
+            param = latest;
+            latest = null;
+            sending = param != null;
+            done = flushed;
+        }
+        if (param == null) {
+            done.complete(null);
+            return;
+        }
+        CompletableFuture<Void> written;
+        try {
+            written = sendAsync(param);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                latest = null;
+                sending = false;
+            }
+            done.complete(null);
+            throw e;
+        }
+        written.whenComplete((result, failure) -> sendNext());
     }
 }
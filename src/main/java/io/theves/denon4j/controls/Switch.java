@@ -20,6 +20,9 @@
 package io.theves.denon4j.controls;
 
 import io.theves.denon4j.DenonReceiver;
+import io.theves.denon4j.net.Event;
+
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Switch control like on/off.
@@ -45,7 +48,23 @@ public abstract class Switch extends AbstractControl {
     }
 
     public String state() {
-        return sendRequest().asciiValue().substring(2);
+        return cachedState().orElseGet(() -> stateOf(sendRequest()));
+    }
+
+    public CompletableFuture<String> stateAsync() {
+        return cachedState()
+            .map(CompletableFuture::completedFuture)
+            .orElseGet(() -> sendRequestAsync().thenApply(this::stateOf));
+    }
+
+    @Override
+    public String stateQuery() {
+        return getCommandPrefix() + "?";
+    }
+
+    @Override
+    protected String stateOf(Event event) {
+        return event.asciiValue().substring(2);
     }
 
     private void executeCommand(String param) {
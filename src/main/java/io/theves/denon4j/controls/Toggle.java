@@ -32,6 +32,11 @@ public class Toggle extends Switch {
         super(receiver, prefix, on, off);
     }
 
+    /**
+     * Switches off if the switch is on, otherwise on. Decides from the cached state, see
+     * {@link io.theves.denon4j.ReceiverState}, and only queries the receiver if it is unknown or stale. A toggle
+     * forgets the cached state until the receiver reports the new one.
+     */
     public void toggle() {
         if (onValue.equals(state())) {
             switchOff();
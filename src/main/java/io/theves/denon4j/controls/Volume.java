@@ -22,26 +22,66 @@ package io.theves.denon4j.controls;
 import io.theves.denon4j.DenonReceiver;
 import io.theves.denon4j.net.Event;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Pattern;
+
 import static java.lang.String.format;
 
 public class Volume extends Slider {
     private static final String REGEX = "\\d\\d\\d?";
     private String max;
+    private volatile Pattern pattern;
 
     public Volume(DenonReceiver receiver, String prefix, String up, String down) {
         super(receiver, prefix, up, down);
     }
 
+    @Override
     public void set(String value) {
         if (value == null || !value.matches(REGEX)) {
             throw new IllegalArgumentException(format("Value must match '%s'", REGEX));
         }
-        send(value);
+        super.set(toParameter(value));
+    }
+
+    /**
+     * Converts a validated value to the command parameter, e.g. prepends the channel of a channel volume.
+     *
+     * @param value the value to set.
+     * @return the command parameter.
+     */
+    protected String toParameter(String value) {
+        return value;
     }
 
     @Override
     public String get() {
-        return sendRequest(getCommandPrefix() + REGEX).asciiValue().substring(2);
+        flushed().join();
+        return cachedState().orElseGet(() -> stateOf(sendRequest(pattern().pattern())));
+    }
+
+    @Override
+    public CompletableFuture<String> getAsync() {
+        return flushed().thenCompose(ignored -> cachedState()
+            .map(CompletableFuture::completedFuture)
+            .orElseGet(() -> sendRequestAsync(pattern().pattern()).thenApply(this::stateOf)));
+    }
+
+    @Override
+    protected String stateOf(Event event) {
+        String value = event.asciiValue();
+        if (!pattern().matcher(value).matches()) {
+            return null;
+        }
+        return value.substring(getCommandPrefix().length() + toParameter("").length());
+    }
+
+    private Pattern pattern() {
+        // compiled lazily, toParameter may be overridden
+        if (pattern == null) {
+            pattern = Pattern.compile(getCommandPrefix() + toParameter(REGEX));
+        }
+        return pattern;
     }
 
     @Override
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2017 Sascha Theves
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ * Modifications Copyright 2020 Codersparks
+ */
+
+
+
+package io.theves.denon4j.events;
+
+/**
+ * The speaker channels of the channel volume events, e.g. <code>CVFL 50</code>.
+ */
+public enum Channel {
+    FRONT_LEFT("FL"),
+    FRONT_RIGHT("FR"),
+    CENTER("C"),
+    SUBWOOFER("SW"),
+    SURROUND_LEFT("SL"),
+    SURROUND_RIGHT("SR"),
+    SURROUND_BACK_LEFT("SBL"),
+    SURROUND_BACK_RIGHT("SBR"),
+    SURROUND_BACK("SB"),
+    FRONT_HEIGHT_LEFT("FHL"),
+    FRONT_HEIGHT_RIGHT("FHR");
+
+    private final String code;
+
+    Channel(String code) {
+        this.code = code;
+    }
+
+    public String getCode() {
+        return code;
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ * Copyright 2017 Sascha Theves
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ * Modifications Copyright 2020 Codersparks
+ */
+
+
+
+package io.theves.denon4j.events;
+
+import io.theves.denon4j.controls.InputSource;
+import io.theves.denon4j.controls.SurroundMode;
+
+import java.util.Objects;
+
+/**
+ * A receiver event decoded to its meaning, see {@link EventDecoder}. Volumes are given in half dB steps as
+ * reported by the receiver, e.g. <code>MV455</code> is 91 steps and <code>MV45</code> is 90 steps.
+ */
+public interface DomainEvent {
+
+    /**
+     * <code>PWON</code> or <code>PWSTANDBY</code>.
+     */
+    final class PowerChanged implements DomainEvent {
+        static final PowerChanged ON = new PowerChanged(true);
+        static final PowerChanged STANDBY = new PowerChanged(false);
+
+        private final boolean on;
+
+        private PowerChanged(boolean on) {
+            this.on = on;
+        }
+
+        public boolean isOn() {
+            return on;
+        }
+
+        @Override
+        public String toString() {
+            return "PowerChanged{on=" + on + '}';
+        }
+    }
+
+    /**
+     * <code>MUON</code> or <code>MUOFF</code>.
+     */
+    final class MuteChanged implements DomainEvent {
+        static final MuteChanged ON = new MuteChanged(true);
+        static final MuteChanged OFF = new MuteChanged(false);
+
+        private final boolean muted;
+
+        private MuteChanged(boolean muted) {
+            this.muted = muted;
+        }
+
+        public boolean isMuted() {
+            return muted;
+        }
+
+        @Override
+        public String toString() {
+            return "MuteChanged{muted=" + muted + '}';
+        }
+    }
+
+    /**
+     * The master volume, e.g. <code>MV455</code>.
+     */
+    final class MasterVolume implements DomainEvent {
+        private final int halfDbSteps;
+
+        public MasterVolume(int halfDbSteps) {
+            this.halfDbSteps = halfDbSteps;
+        }
+
+        public int getHalfDbSteps() {
+            return halfDbSteps;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof MasterVolume && ((MasterVolume) o).halfDbSteps == halfDbSteps;
+        }
+
+        @Override
+        public int hashCode() {
+            return halfDbSteps;
+        }
+
+        @Override
+        public String toString() {
+            return "MasterVolume{halfDbSteps=" + halfDbSteps + '}';
+        }
+    }
+
+    /**
+     * The maximum of the master volume, e.g. <code>MVMAX 98</code>.
+     */
+    final class VolumeMax implements DomainEvent {
+        private final int halfDbSteps;
+
+        public VolumeMax(int halfDbSteps) {
+            this.halfDbSteps = halfDbSteps;
+        }
+
+        public int getHalfDbSteps() {
+            return halfDbSteps;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof VolumeMax && ((VolumeMax) o).halfDbSteps == halfDbSteps;
+        }
+
+        @Override
+        public int hashCode() {
+            return halfDbSteps;
+        }
+
+        @Override
+        public String toString() {
+            return "VolumeMax{halfDbSteps=" + halfDbSteps + '}';
+        }
+    }
+
+    /**
+     * The level of a speaker channel, e.g. <code>CVFL 50</code>, 50 is 0 dB.
+     */
+    final class ChannelVolume implements DomainEvent {
+        private final Channel channel;
+        private final int level;
+
+        public ChannelVolume(Channel channel, int level) {
+            this.channel = channel;
+            this.level = level;
+        }
+
+        public Channel getChannel() {
+            return channel;
+        }
+
+        /**
+         * @return the level in half dB steps.
+         */
+        public int getLevel() {
+            return level;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof ChannelVolume)) {
+                return false;
+            }
+            ChannelVolume that = (ChannelVolume) o;
+            return channel == that.channel && level == that.level;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(channel, level);
+        }
+
+        @Override
+        public String toString() {
+            return "ChannelVolume{channel=" + channel + ", level=" + level + '}';
+        }
+    }
+
+    /**
+     * The selected input, e.g. <code>SICD</code>.
+     */
+    final class InputChanged implements DomainEvent {
+        private final InputSource source;
+
+        InputChanged(InputSource source) {
+            this.source = source;
+        }
+
+        public InputSource getSource() {
+            return source;
+        }
+
+        @Override
+        public String toString() {
+            return "InputChanged{source=" + source.name() + '}';
+        }
+    }
+
+    /**
+     * The surround mode, e.g. <code>MSSTEREO</code>.
+     */
+    final class SurroundModeChanged implements DomainEvent {
+        private final SurroundMode mode;
+
+        SurroundModeChanged(SurroundMode mode) {
+            this.mode = mode;
+        }
+
+        public SurroundMode getMode() {
+            return mode;
+        }
+
+        @Override
+        public String toString() {
+            return "SurroundModeChanged{mode=" + mode + '}';
+        }
+    }
+
+    /**
+     * The sleep timer, e.g. <code>SLP120</code>, <code>SLPOFF</code> is 0 minutes.
+     */
+    final class SleepTimer implements DomainEvent {
+        private final int minutes;
+
+        public SleepTimer(int minutes) {
+            this.minutes = minutes;
+        }
+
+        public int getMinutes() {
+            return minutes;
+        }
+
+        public boolean isOff() {
+            return minutes == 0;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof SleepTimer && ((SleepTimer) o).minutes == minutes;
+        }
+
+        @Override
+        public int hashCode() {
+            return minutes;
+        }
+
+        @Override
+        public String toString() {
+            return "SleepTimer{minutes=" + minutes + '}';
+        }
+    }
+}
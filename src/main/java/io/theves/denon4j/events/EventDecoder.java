@@ -0,0 +1,256 @@
+/*
+ * Copyright 2017 Sascha Theves
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ * Modifications Copyright 2020 Codersparks
+ */
+
+
+
+package io.theves.denon4j.events;
+
+import io.theves.denon4j.controls.InputSource;
+import io.theves.denon4j.controls.SurroundMode;
+import io.theves.denon4j.net.Event;
+import io.theves.denon4j.net.EventListener;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Decodes receiver events to {@link DomainEvent}s. The decoder is looked up by the first two bytes of the event
+ * in a table and reads the value from the bytes, no regex is matched and no string is created. Events without
+ * meaning to the decoder, e.g. <code>NSE</code> lines or unknown surround modes, are decoded to <code>null</code>.
+ */
+public final class EventDecoder {
+    // indexed by the first two ASCII bytes
+    private static final Rule[] RULES = new Rule[128 * 128];
+    private static final byte[] MAX = ascii("MAX ");
+    private static final byte[] ON = ascii("ON");
+    private static final byte[] OFF = ascii("OFF");
+    private static final byte[] STANDBY = ascii("STANDBY");
+    private static final DomainEvent.SleepTimer SLEEP_OFF = new DomainEvent.SleepTimer(0);
+    private static final Table<Channel> CHANNELS = new Table<>();
+    private static final Table<DomainEvent> INPUTS = new Table<>();
+    private static final Table<DomainEvent> SURROUND_MODES = new Table<>();
+
+    static {
+        for (Channel channel : Channel.values()) {
+            CHANNELS.put(channel.getCode(), channel);
+        }
+        for (InputSource source : InputSource.values()) {
+            INPUTS.put(source.getInputSource(), new DomainEvent.InputChanged(source));
+        }
+        for (SurroundMode mode : SurroundMode.values()) {
+            SURROUND_MODES.put(mode.getMode(), new DomainEvent.SurroundModeChanged(mode));
+        }
+        rule("PW", EventDecoder::power);
+        rule("MU", EventDecoder::mute);
+        rule("MV", EventDecoder::masterVolume);
+        rule("CV", EventDecoder::channelVolume);
+        rule("SI", event -> INPUTS.find(event, 2, event.length()));
+        rule("MS", event -> SURROUND_MODES.find(event, 2, event.length()));
+        rule("SL", EventDecoder::sleepTimer);
+    }
+
+    private EventDecoder() {
+    }
+
+    /**
+     * Decodes the event.
+     *
+     * @param event the received event.
+     * @return the domain event or <code>null</code> if the event has no meaning to the decoder.
+     */
+    public static DomainEvent decode(Event event) {
+        if (event.length() < 2) {
+            return null;
+        }
+        int b0 = event.byteAt(0);
+        int b1 = event.byteAt(1);
+        if (b0 < 0 || b1 < 0) {
+            return null;
+        }
+        Rule rule = RULES[b0 << 7 | b1];
+        return rule == null ? null : rule.decode(event);
+    }
+
+    /**
+     * Creates an event listener that passes the decoded events to the <code>consumer</code>, events without
+     * meaning to the decoder are skipped.
+     *
+     * @param consumer the consumer of the domain events.
+     * @return the listener to register at the receiver.
+     */
+    public static EventListener listener(Consumer<? super DomainEvent> consumer) {
+        if (consumer == null) {
+            throw new IllegalArgumentException("Arguments must not be null");
+        }
+        return event -> {
+            DomainEvent decoded = decode(event);
+            if (decoded != null) {
+                consumer.accept(decoded);
+            }
+        };
+    }
+
+    private static DomainEvent power(Event event) {
+        if (equals(event, 2, event.length(), ON)) {
+            return DomainEvent.PowerChanged.ON;
+        }
+        if (equals(event, 2, event.length(), STANDBY)) {
+            return DomainEvent.PowerChanged.STANDBY;
+        }
+        return null;
+    }
+
+    private static DomainEvent mute(Event event) {
+        if (equals(event, 2, event.length(), ON)) {
+            return DomainEvent.MuteChanged.ON;
+        }
+        if (equals(event, 2, event.length(), OFF)) {
+            return DomainEvent.MuteChanged.OFF;
+        }
+        return null;
+    }
+
+    private static DomainEvent masterVolume(Event event) {
+        if (equals(event, 2, Math.min(2 + MAX.length, event.length()), MAX)) {
+            int max = halfDbSteps(event, 2 + MAX.length);
+            return max < 0 ? null : new DomainEvent.VolumeMax(max);
+        }
+        int volume = halfDbSteps(event, 2);
+        return volume < 0 ? null : new DomainEvent.MasterVolume(volume);
+    }
+
+    private static DomainEvent channelVolume(Event event) {
+        int blank = indexOf(event, 2, (byte) ' ');
+        if (blank < 0) {
+            return null;
+        }
+        Channel channel = CHANNELS.find(event, 2, blank);
+        int level = halfDbSteps(event, blank + 1);
+        return channel == null || level < 0 ? null : new DomainEvent.ChannelVolume(channel, level);
+    }
+
+    private static DomainEvent sleepTimer(Event event) {
+        if (event.length() < 3 || event.byteAt(2) != 'P') {
+            return null;
+        }
+        if (equals(event, 3, event.length(), OFF)) {
+            return SLEEP_OFF;
+        }
+        int minutes = event.length() == 6 ? number(event, 3, 6) : -1;
+        return minutes < 0 ? null : new DomainEvent.SleepTimer(minutes);
+    }
+
+    /**
+     * Reads a volume of two digits, whole dB, or three digits ending with <code>0</code> or <code>5</code>.
+     *
+     * @return the volume in half dB steps or <code>-1</code> if the value is no volume.
+     */
+    private static int halfDbSteps(Event event, int from) {
+        int digits = event.length() - from;
+        if (digits != 2 && digits != 3) {
+            return -1;
+        }
+        int db = number(event, from, from + 2);
+        if (db < 0) {
+            return -1;
+        }
+        if (digits == 2) {
+            return db * 2;
+        }
+        byte half = event.byteAt(from + 2);
+        return half == '5' ? db * 2 + 1 : half == '0' ? db * 2 : -1;
+    }
+
+    private static int number(Event event, int from, int to) {
+        int n = 0;
+        for (int i = from; i < to; i++) {
+            int digit = event.byteAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            n = n * 10 + digit;
+        }
+        return n;
+    }
+
+    private static int indexOf(Event event, int from, byte b) {
+        for (int i = from; i < event.length(); i++) {
+            if (event.byteAt(i) == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean equals(Event event, int from, int to, byte[] value) {
+        if (to - from != value.length) {
+            return false;
+        }
+        for (int i = 0; i < value.length; i++) {
+            if (event.byteAt(from + i) != value[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void rule(String prefix, Rule rule) {
+        RULES[prefix.charAt(0) << 7 | prefix.charAt(1)] = rule;
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(US_ASCII);
+    }
+
+    @FunctionalInterface
+    private interface Rule {
+        DomainEvent decode(Event event);
+    }
+
+    /**
+     * Maps the ASCII codes of a parameter to values, few enough to compare one after another.
+     */
+    private static final class Table<T> {
+        private byte[][] codes = new byte[0][];
+        private Object[] values = new Object[0];
+
+        void put(String code, T value) {
+            int n = codes.length;
+            codes = Arrays.copyOf(codes, n + 1);
+            values = Arrays.copyOf(values, n + 1);
+            codes[n] = ascii(code);
+            values[n] = value;
+        }
+
+        @SuppressWarnings("unchecked")
+        T find(Event event, int from, int to) {
+            for (int i = 0; i < codes.length; i++) {
+                if (EventDecoder.equals(event, from, to, codes[i])) {
+                    return (T) values[i];
+                }
+            }
+            return null;
+        }
+    }
+}
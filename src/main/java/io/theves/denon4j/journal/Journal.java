@@ -0,0 +1,309 @@
+/*
+ * Copyright 2017 Sascha Theves
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ * Modifications Copyright 2020 Codersparks
+ */
+
+
+
+package io.theves.denon4j.journal;
+
+import io.theves.denon4j.net.Command;
+import io.theves.denon4j.net.Event;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Append-only journal of the traffic of receivers, written to memory-mapped segment files of fixed size. A full
+ * segment is closed and the next one is created, the oldest are deleted beyond the configured number of segments.
+ * <p>
+ * Every record holds the direction, the id of the receiver, a timestamp in nanoseconds since the epoch and the raw
+ * bytes of the event or command:
+ * <pre>
+ * byte direction | unsigned short length | int receiver id | long epoch nanos | bytes
+ * </pre>
+ * The direction is written last, a record with direction <code>0</code> ends the segment. Appending does not
+ * allocate except when a segment is rotated. Records survive a crash of the process, use {@link #flush()} to
+ * survive a crash of the system. Attach the journal with
+ * {@link io.theves.denon4j.DenonReceiver#setJournal(Journal, int)}, read it with {@link JournalReader} and play it
+ * back with {@link JournalReplay}.
+ */
+public final class Journal implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    static final int MAGIC = 0x44344a4c;
+    static final int VERSION = 1;
+    static final int SEGMENT_HEADER = 8;
+    static final int RECORD_HEADER = 15;
+    static final int MAX_PAYLOAD = 0xffff;
+    static final String SUFFIX = ".journal";
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            // resolved reflectively, a mapping is otherwise only released when the buffer is garbage collected
+            Class<?> type = Class.forName("sun.misc.Unsafe");
+            Field field = type.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            invokeCleaner = type.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // not available
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final Deque<Path> segments = new ArrayDeque<>();
+    private final long epochNanos;
+    private final long nanoTime;
+
+    // guarded by this
+    private long sequence;
+    private MappedByteBuffer buffer;
+    private int position;
+    private long records;
+    private long dropped;
+    private boolean closed;
+
+    private Journal(Path directory, int segmentSize, int maxSegments) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+        Instant now = Instant.now();
+        this.epochNanos = now.getEpochSecond() * 1_000_000_000L + now.getNano();
+        this.nanoTime = System.nanoTime();
+        Files.createDirectories(directory);
+        List<Path> existing = JournalReader.segments(directory);
+        segments.addAll(existing);
+        sequence = existing.isEmpty() ? 0 : JournalReader.sequenceOf(existing.get(existing.size() - 1));
+        rotate();
+    }
+
+    /**
+     * Opens a journal with segments of {@value #DEFAULT_SEGMENT_SIZE} bytes, keeping all segments. Existing
+     * segments are kept, appending starts with a new segment.
+     *
+     * @param directory the directory of the segments.
+     * @return the journal.
+     * @throws UncheckedIOException if the first segment cannot be created.
+     */
+    public static Journal open(Path directory) {
+        return open(directory, DEFAULT_SEGMENT_SIZE, 0);
+    }
+
+    /**
+     * Opens a journal. Existing segments are kept, appending starts with a new segment.
+     *
+     * @param directory   the directory of the segments.
+     * @param segmentSize the size of a segment file in bytes.
+     * @param maxSegments the number of segments to keep, <code>0</code> to keep all.
+     * @return the journal.
+     * @throws UncheckedIOException if the first segment cannot be created.
+     */
+    public static Journal open(Path directory, int segmentSize, int maxSegments) {
+        if (directory == null) {
+            throw new IllegalArgumentException("Arguments must not be null");
+        }
+        if (segmentSize < SEGMENT_HEADER + RECORD_HEADER + MAX_PAYLOAD) {
+            throw new IllegalArgumentException("segmentSize must be >= " + (SEGMENT_HEADER + RECORD_HEADER + MAX_PAYLOAD));
+        }
+        if (maxSegments < 0) {
+            throw new IllegalArgumentException("maxSegments must be >= 0");
+        }
+        try {
+            return new Journal(directory, segmentSize, maxSegments);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open journal in " + directory, e);
+        }
+    }
+
+    /**
+     * Appends a received event.
+     *
+     * @param receiverId the id of the receiver.
+     * @param event      the event.
+     */
+    public synchronized void received(int receiverId, Event event) {
+        int length = Math.min(event.length(), MAX_PAYLOAD);
+        int at = reserve(length);
+        if (at < 0) {
+            return;
+        }
+        buffer.position(at + RECORD_HEADER);
+        if (length == event.length()) {
+            event.copyTo(buffer);
+        } else {
+            for (int i = 0; i < length; i++) {
+                buffer.put(event.byteAt(i));
+            }
+        }
+        commit(at, JournalRecord.Direction.IN, length, receiverId);
+    }
+
+    /**
+     * Appends a command sent to a receiver.
+     *
+     * @param receiverId the id of the receiver.
+     * @param command    the command.
+     */
+    public synchronized void sent(int receiverId, Command command) {
+        String signature = command.signature();
+        int length = Math.min(signature.length(), MAX_PAYLOAD);
+        int at = reserve(length);
+        if (at < 0) {
+            return;
+        }
+        int payload = at + RECORD_HEADER;
+        for (int i = 0; i < length; i++) {
+            buffer.put(payload + i, (byte) signature.charAt(i));
+        }
+        commit(at, JournalRecord.Direction.OUT, length, receiverId);
+    }
+
+    /**
+     * @return the position of the record in the current segment, <code>-1</code> if it is dropped.
+     */
+    private int reserve(int length) {
+        if (closed || buffer == null) {
+            dropped++;
+            return -1;
+        }
+        if (position + RECORD_HEADER + length > segmentSize && !rotate()) {
+            dropped++;
+            return -1;
+        }
+        int at = position;
+        position += RECORD_HEADER + length;
+        return at;
+    }
+
+    private void commit(int at, JournalRecord.Direction direction, int length, int receiverId) {
+        buffer.putShort(at + 1, (short) length);
+        buffer.putInt(at + 3, receiverId);
+        buffer.putLong(at + 7, epochNanos + System.nanoTime() - nanoTime);
+        buffer.put(at, direction.code());
+        records++;
+    }
+
+    private boolean rotate() {
+        unmap();
+        Path next = directory.resolve(String.format("%016d%s", ++sequence, SUFFIX));
+        try (FileChannel channel = FileChannel.open(next, CREATE_NEW, READ, WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        } catch (IOException e) {
+            logger.error("Cannot create journal segment {}, dropping records", next, e);
+            buffer = null;
+            return false;
+        }
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        position = SEGMENT_HEADER;
+        segments.addLast(next);
+        while (maxSegments > 0 && segments.size() > maxSegments) {
+            Path oldest = segments.removeFirst();
+            try {
+                Files.deleteIfExists(oldest);
+            } catch (IOException e) {
+                logger.warn("Cannot delete journal segment {}", oldest, e);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the number of appended records.
+     */
+    public synchronized long records() {
+        return records;
+    }
+
+    /**
+     * @return the number of records dropped because the journal was closed or a segment could not be created.
+     */
+    public synchronized long dropped() {
+        return dropped;
+    }
+
+    public Path directory() {
+        return directory;
+    }
+
+    /**
+     * Writes the current segment to the storage device.
+     */
+    public synchronized void flush() {
+        if (buffer != null) {
+            buffer.force();
+        }
+    }
+
+    /**
+     * Flushes and closes the journal, later records are dropped.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        flush();
+        closed = true;
+        unmap();
+    }
+
+    private void unmap() {
+        MappedByteBuffer mapped = buffer;
+        buffer = null;
+        if (mapped == null || INVOKE_CLEANER == null) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invoke(UNSAFE, mapped);
+        } catch (ReflectiveOperationException e) {
+            logger.debug("Cannot unmap journal segment", e);
+        }
+    }
+}
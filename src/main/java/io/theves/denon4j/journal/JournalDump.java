@@ -0,0 +1,56 @@
+/*
+ * Copyright 2017 Sascha Theves
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ * Modifications Copyright 2020 Codersparks
+ */
+
+
+
+package io.theves.denon4j.journal;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Prints the records of a {@link Journal}, one line per record.
+ * <p>
+ * Usage: {@code JournalDump <journal directory or segment> [receiver id]}
+ */
+public final class JournalDump {
+
+    private JournalDump() {
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: JournalDump <journal directory or segment> [receiver id]");
+            System.exit(2);
+        }
+        Path path = Paths.get(args[0]);
+        Integer receiverId = args.length > 1 ? Integer.valueOf(args[1]) : null;
+        long count = 0;
+        for (JournalRecord record : new JournalReader(path)) {
+            if (receiverId == null || receiverId == record.receiverId()) {
+                System.out.println(record);
+                count++;
+            }
+        }
+        System.err.println(count + " records");
+    }
+}
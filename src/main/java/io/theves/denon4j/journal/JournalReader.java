@@ -0,0 +1,174 @@
+/*
+ * Copyright 2017 Sascha Theves
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ * Modifications Copyright 2020 Codersparks
+ */
+
+
+
+package io.theves.denon4j.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * Reads the records of a {@link Journal} in the order they were appended. The records of a segment written by a
+ * running journal are read up to the last completely appended record.
+ */
+public final class JournalReader implements Iterable<JournalRecord> {
+    private final List<Path> segments;
+
+    /**
+     * @param path the directory of a journal or a single segment file.
+     * @throws UncheckedIOException if the directory cannot be listed.
+     */
+    public JournalReader(Path path) {
+        if (path == null) {
+            throw new IllegalArgumentException("Arguments must not be null");
+        }
+        this.segments = Files.isDirectory(path) ? segments(path) : Collections.singletonList(path);
+    }
+
+    /**
+     * @return the segment files in the order they were written.
+     */
+    public List<Path> segments() {
+        return segments;
+    }
+
+    @Override
+    public Iterator<JournalRecord> iterator() {
+        return new RecordIterator(segments.iterator());
+    }
+
+    public Stream<JournalRecord> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    static List<Path> segments(Path directory) {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(p -> sequenceOf(p) >= 0)
+                .sorted((a, b) -> Long.compare(sequenceOf(a), sequenceOf(b)))
+                .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot list journal " + directory, e);
+        }
+    }
+
+    static long sequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        if (!name.endsWith(Journal.SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(0, name.length() - Journal.SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static ByteBuffer map(Path segment) {
+        try (FileChannel channel = FileChannel.open(segment, READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.limit() < Journal.SEGMENT_HEADER || buffer.getInt(0) != Journal.MAGIC) {
+                throw new IllegalStateException("Not a journal segment: " + segment);
+            }
+            if (buffer.getInt(4) != Journal.VERSION) {
+                throw new IllegalStateException("Unsupported journal version " + buffer.getInt(4) + ": " + segment);
+            }
+            return buffer;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read journal segment " + segment, e);
+        }
+    }
+
+    private static final class RecordIterator implements Iterator<JournalRecord> {
+        private final Iterator<Path> segments;
+        private ByteBuffer buffer;
+        private int position;
+        private JournalRecord next;
+
+        RecordIterator(Iterator<Path> segments) {
+            this.segments = segments;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null) {
+                if (buffer == null) {
+                    if (!segments.hasNext()) {
+                        return false;
+                    }
+                    buffer = map(segments.next());
+                    position = Journal.SEGMENT_HEADER;
+                }
+                next = read();
+                if (next == null) {
+                    buffer = null;
+                }
+            }
+            return true;
+        }
+
+        private JournalRecord read() {
+            if (position + Journal.RECORD_HEADER > buffer.limit()) {
+                return null;
+            }
+            JournalRecord.Direction direction = JournalRecord.Direction.of(buffer.get(position));
+            if (direction == null) {
+                return null;
+            }
+            int length = Short.toUnsignedInt(buffer.getShort(position + 1));
+            int receiverId = buffer.getInt(position + 3);
+            long epochNanos = buffer.getLong(position + 7);
+            if (position + Journal.RECORD_HEADER + length > buffer.limit()) {
+                return null;
+            }
+            byte[] payload = new byte[length];
+            for (int i = 0; i < length; i++) {
+                payload[i] = buffer.get(position + Journal.RECORD_HEADER + i);
+            }
+            position += Journal.RECORD_HEADER + length;
+            return new JournalRecord(direction, receiverId, epochNanos, payload);
+        }
+
+        @Override
+        public JournalRecord next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            JournalRecord record = next;
+            next = null;
+            return record;
+        }
+    }
+}
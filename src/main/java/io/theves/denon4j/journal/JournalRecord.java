@@ -0,0 +1,136 @@
+/*
+ * Copyright 2017 Sascha Theves
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ * Modifications Copyright 2020 Codersparks
+ */
+
+
+
+package io.theves.denon4j.journal;
+
+import io.theves.denon4j.net.Command;
+import io.theves.denon4j.net.Event;
+
+import java.time.Instant;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * A record read from a {@link Journal}.
+ */
+public final class JournalRecord {
+
+    /**
+     * Whether the record was received from or sent to the receiver.
+     */
+    public enum Direction {
+        IN((byte) 1),
+        OUT((byte) 2);
+
+        private final byte code;
+
+        Direction(byte code) {
+            this.code = code;
+        }
+
+        byte code() {
+            return code;
+        }
+
+        static Direction of(byte code) {
+            switch (code) {
+                case 1:
+                    return IN;
+                case 2:
+                    return OUT;
+                default:
+                    return null;
+            }
+        }
+    }
+
+    private final Direction direction;
+    private final int receiverId;
+    private final long epochNanos;
+    private final byte[] payload;
+
+    JournalRecord(Direction direction, int receiverId, long epochNanos, byte[] payload) {
+        this.direction = direction;
+        this.receiverId = receiverId;
+        this.epochNanos = epochNanos;
+        this.payload = payload;
+    }
+
+    public Direction direction() {
+        return direction;
+    }
+
+    public int receiverId() {
+        return receiverId;
+    }
+
+    /**
+     * @return the time of the record in nanoseconds since the epoch.
+     */
+    public long epochNanos() {
+        return epochNanos;
+    }
+
+    public Instant timestamp() {
+        return Instant.ofEpochSecond(0, epochNanos);
+    }
+
+    /**
+     * @return a copy of the raw bytes.
+     */
+    public byte[] payload() {
+        return payload.clone();
+    }
+
+    public String asciiValue() {
+        return new String(payload, US_ASCII);
+    }
+
+    /**
+     * @return the received event.
+     * @throws IllegalStateException if the record is a sent command.
+     */
+    public Event event() {
+        if (direction != Direction.IN) {
+            throw new IllegalStateException("Not a received event: " + this);
+        }
+        return Event.create(payload);
+    }
+
+    /**
+     * @return the sent command.
+     * @throws IllegalStateException if the record is a received event.
+     */
+    public Command command() {
+        if (direction != Direction.OUT) {
+            throw new IllegalStateException("Not a sent command: " + this);
+        }
+        return Command.createCommand(asciiValue());
+    }
+
+    @Override
+    public String toString() {
+        return timestamp() + " " + direction + " " + receiverId + " " + asciiValue();
+    }
+}
@@ -0,0 +1,296 @@
+/*
+ * Copyright 2017 Sascha Theves
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ * Modifications Copyright 2020 Codersparks
+ */
+
+
+
+package io.theves.denon4j.journal;
+
+import io.theves.denon4j.net.Command;
+import io.theves.denon4j.net.ConnectException;
+import io.theves.denon4j.net.ConnectionException;
+import io.theves.denon4j.net.Event;
+import io.theves.denon4j.net.EventDispatcher;
+import io.theves.denon4j.net.Protocol;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandles;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plays the events one receiver recorded in a {@link Journal} back to the dispatcher, with the original timing,
+ * faster by a factor or as fast as possible. Replaying starts when the connection is established and starts over
+ * on every connect.
+ * <p>
+ * Sent commands are answered with the events the receiver sent after the same command in the recording, later
+ * calls get later responses and the last one is repeated. Queries that were never recorded, e.g. <code>MV?</code>,
+ * are answered with the latest values the replayed events reported for the prefix. Other commands are not
+ * answered, like by a receiver that ignores them. Recorded and answered events are dispatched by a single thread, as by the
+ * TCP protocols, and the replay reports writes so that requests only capture events after their command.
+ */
+public final class JournalReplay implements Protocol {
+    private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    /**
+     * Speed that dispatches the recorded events without pause.
+     */
+    public static final double AS_FAST_AS_POSSIBLE = Double.POSITIVE_INFINITY;
+    // events later than this after a command are not part of its response
+    static final long RESPONSE_WINDOW = Duration.ofMillis(500).toNanos();
+    private static final int MAX_RESPONSE_EVENTS = 256;
+    private static final int MAX_RESPONSES = 16;
+    private static final long IDLE = Duration.ofMillis(100).toNanos();
+
+    private final JournalReader reader;
+    private final int receiverId;
+    private final double speed;
+    private final Map<String, List<List<Event>>> responses = new HashMap<>();
+    private final BlockingQueue<Command> commands = new LinkedBlockingQueue<>();
+
+    private EventDispatcher dispatcher;
+    private volatile Thread player;
+    private volatile CompletableFuture<Void> finished = new CompletableFuture<>();
+    private volatile long replayed;
+
+    /**
+     * @param reader     the recorded journal.
+     * @param receiverId the id of the receiver to replay.
+     * @param speed      the factor to speed up the original timing, <code>1</code> to keep it or
+     *                   {@link #AS_FAST_AS_POSSIBLE}.
+     * @throws java.io.UncheckedIOException if the journal cannot be read.
+     */
+    public JournalReplay(JournalReader reader, int receiverId, double speed) {
+        if (reader == null) {
+            throw new IllegalArgumentException("Arguments must not be null");
+        }
+        if (!(speed > 0)) {
+            throw new IllegalArgumentException("speed must be > 0");
+        }
+        this.reader = reader;
+        this.receiverId = receiverId;
+        this.speed = speed;
+        indexResponses();
+    }
+
+    private void indexResponses() {
+        List<Event> response = null;
+        long sentAt = 0;
+        for (JournalRecord record : reader) {
+            if (record.receiverId() != receiverId) {
+                continue;
+            }
+            if (record.direction() == JournalRecord.Direction.OUT) {
+                List<List<Event>> recorded = responses.computeIfAbsent(record.asciiValue(), k -> new ArrayList<>());
+                if (recorded.size() == MAX_RESPONSES) {
+                    recorded.remove(0);
+                }
+                response = new ArrayList<>();
+                recorded.add(response);
+                sentAt = record.epochNanos();
+            } else if (response != null && record.epochNanos() - sentAt <= RESPONSE_WINDOW
+                && response.size() < MAX_RESPONSE_EVENTS) {
+                response.add(record.event());
+            }
+        }
+    }
+
+    @Override
+    public void send(Command command) {
+        if (!isConnected()) {
+            throw new ConnectionException("Not connected.");
+        }
+        commands.add(command);
+    }
+
+    @Override
+    public boolean reportsWrites() {
+        return true;
+    }
+
+    @Override
+    public void setDispatcher(EventDispatcher eventDispatcher) {
+        this.dispatcher = eventDispatcher;
+    }
+
+    @Override
+    public synchronized void establishConnection(int timeout) throws ConnectionException {
+        if (isConnected()) {
+            throw new ConnectException("Already connected.");
+        }
+        if (dispatcher == null) {
+            throw new ConnectException("No dispatcher set.");
+        }
+        commands.clear();
+        replayed = 0;
+        finished = new CompletableFuture<>();
+        Thread thread = new Thread(new Run(), "JournalReplay");
+        thread.setDaemon(true);
+        player = thread;
+        thread.start();
+    }
+
+    @Override
+    public synchronized void disconnect() {
+        Thread thread = player;
+        if (thread == null) {
+            return;
+        }
+        player = null;
+        thread.interrupt();
+        finished.completeExceptionally(new ConnectionException("Disconnected."));
+    }
+
+    @Override
+    public boolean isConnected() {
+        return player != null;
+    }
+
+    /**
+     * @return a future that is completed when all recorded events were dispatched.
+     */
+    public CompletableFuture<Void> finished() {
+        return finished;
+    }
+
+    /**
+     * @return the number of recorded events dispatched since the connection was established.
+     */
+    public long replayed() {
+        return replayed;
+    }
+
+    private long dueIn(JournalRecord record, long origin, long start) {
+        if (speed == AS_FAST_AS_POSSIBLE) {
+            return 0;
+        }
+        return (long) ((record.epochNanos() - origin) / speed) - (System.nanoTime() - start);
+    }
+
+    private JournalRecord nextEvent(Iterator<JournalRecord> timeline) {
+        while (timeline.hasNext()) {
+            JournalRecord record = timeline.next();
+            if (record.receiverId() == receiverId && record.direction() == JournalRecord.Direction.IN) {
+                return record;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the key of the value an event reports. Events with a trailing number report the value named by the
+     * text before it, e.g. <code>MVMAX 98</code> and <code>CVFL 50</code>, other events replace the value of their
+     * prefix, e.g. <code>PWON</code> and <code>PWSTANDBY</code>.
+     */
+    static String keyOf(String event) {
+        int end = event.length();
+        while (end > 2 && (Character.isDigit(event.charAt(end - 1)) || event.charAt(end - 1) == ' '
+            || event.charAt(end - 1) == '.')) {
+            end--;
+        }
+        return end == event.length() ? event.substring(0, Math.min(2, end)) : event.substring(0, end);
+    }
+
+    /**
+     * A replay from the start of the journal, run by the player thread until it is disconnected.
+     */
+    private final class Run implements Runnable {
+        private final CompletableFuture<Void> done = finished;
+        private final Map<String, Integer> answered = new HashMap<>();
+        // the values reported so far by prefix and key, answers queries that were not recorded
+        private final Map<String, Map<String, Event>> values = new HashMap<>();
+
+        @Override
+        public void run() {
+            Thread self = Thread.currentThread();
+            Iterator<JournalRecord> timeline = reader.iterator();
+            try {
+                JournalRecord next = nextEvent(timeline);
+                long origin = next == null ? 0 : next.epochNanos();
+                long start = System.nanoTime();
+                while (player == self) {
+                    if (next == null) {
+                        done.complete(null);
+                    }
+                    Command command = commands.poll();
+                    if (command == null) {
+                        long wait = next == null ? IDLE : dueIn(next, origin, start);
+                        if (wait > 0) {
+                            command = commands.poll(wait, TimeUnit.NANOSECONDS);
+                        }
+                    }
+                    if (command != null) {
+                        answer(command);
+                    } else if (next != null && dueIn(next, origin, start) <= 0) {
+                        notify(next.event());
+                        replayed++;
+                        next = nextEvent(timeline);
+                    }
+                }
+            } catch (InterruptedException e) {
+                // disconnected
+            } catch (RuntimeException e) {
+                logger.error("Replay of {} failed", reader.segments(), e);
+                done.completeExceptionally(e);
+            }
+        }
+
+        private void answer(Command command) {
+            dispatcher.sending(command);
+            String signature = command.signature();
+            List<List<Event>> recorded = responses.getOrDefault(signature, Collections.emptyList());
+            if (!recorded.isEmpty()) {
+                int index = Math.min(answered.merge(signature, 1, Integer::sum) - 1, recorded.size() - 1);
+                recorded.get(index).forEach(this::notify);
+            } else if (signature.endsWith("?")) {
+                Map<String, Event> reported = values.get(command.getPrefix());
+                if (reported != null) {
+                    new ArrayList<>(reported.values()).forEach(this::notify);
+                }
+            } else {
+                logger.debug("No recorded response to {}", signature);
+            }
+        }
+
+        private void notify(Event event) {
+            String value = event.asciiValue();
+            if (value.length() >= 2) {
+                values.computeIfAbsent(value.substring(0, 2), k -> new LinkedHashMap<>()).put(keyOf(value), event);
+            }
+            try {
+                dispatcher.dispatch(event);
+            } catch (Exception e) {
+                logger.warn("Error while invoking event dispatcher", e);
+            }
+        }
+    }
+}
@@ -20,42 +20,148 @@
 package io.theves.denon4j.net;
 
 
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 import java.util.Arrays;
 
 import static java.nio.charset.StandardCharsets.US_ASCII;
 
 /**
  * Event is the representation of a receiver`s response.
+ * <p>
+ * An event is a read-only view over the bytes of one frame. Nothing is decoded up front:
+ * prefix checks compare bytes and {@link #asciiValue()} is decoded on first access only.
  *
  * @author stheves
  */
 public class Event {
-    private final byte[] raw;
-    private final String prefix;
+    private final byte[] bytes;
+    private final int offset;
+    private final int length;
     private String asciiValue;
 
-    private Event(byte[] raw) {
-        this.raw = raw;
-        this.prefix = new String(Arrays.copyOfRange(raw, 0, 2), US_ASCII);
-        asciiValue = new String(raw, US_ASCII);
+    private Event(byte[] bytes, int offset, int length) {
+        this.bytes = bytes;
+        this.offset = offset;
+        this.length = length;
     }
 
     public static Event create(byte[] event) {
-        return new Event(event);
+        return new Event(event, 0, event.length);
     }
 
+    /**
+     * Creates an event that shares the given bytes. The caller must not modify the slice afterwards.
+     *
+     * @param bytes  the backing bytes.
+     * @param offset the first byte of the event.
+     * @param length the length of the event.
+     * @return the event.
+     */
+    public static Event create(byte[] bytes, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > bytes.length) {
+            throw new IndexOutOfBoundsException("Invalid slice " + offset + "+" + length + " of " + bytes.length);
+        }
+        return new Event(bytes, offset, length);
+    }
+
+    /**
+     * The raw bytes of this event.
+     *
+     * @return a read-only buffer positioned at the first byte of the event.
+     */
+    public ByteBuffer raw() {
+        return ByteBuffer.wrap(bytes, offset, length).slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns a copy of the raw bytes.
+     *
+     * @return the raw bytes.
+     * @deprecated use {@link #raw()}, which does not copy.
+     */
+    @Deprecated
     public byte[] getRaw() {
-        return raw;
+        return Arrays.copyOfRange(bytes, offset, offset + length);
+    }
+
+    /**
+     * Copies the bytes of this event to <code>target</code> at its position without allocating.
+     *
+     * @param target the buffer.
+     * @throws java.nio.BufferOverflowException if the buffer has not enough room.
+     */
+    public void copyTo(ByteBuffer target) {
+        target.put(bytes, offset, length);
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public byte byteAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + length);
+        }
+        return bytes[offset + index];
+    }
+
+    /**
+     * Checks whether this event starts with the given ASCII <code>prefix</code> without decoding the event.
+     *
+     * @param prefix the prefix.
+     * @return <code>true</code> if the event starts with the prefix.
+     */
+    public boolean startsWith(String prefix) {
+        int n = prefix.length();
+        if (n > length) {
+            return false;
+        }
+        for (int i = 0; i < n; i++) {
+            if (bytes[offset + i] != (byte) prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether this event starts with the given <code>prefix</code> bytes.
+     *
+     * @param prefix the prefix.
+     * @return <code>true</code> if the event starts with the prefix.
+     */
+    public boolean startsWith(byte[] prefix) {
+        return Arrays.equals(bytes, offset, offset + Math.min(prefix.length, length), prefix, 0, prefix.length);
+    }
+
+    /**
+     * Decodes the event starting at <code>from</code> with the given <code>charset</code>.
+     *
+     * @param from    the index of the first byte to decode.
+     * @param charset the charset.
+     * @return the decoded value.
+     */
+    public String decode(int from, Charset charset) {
+        if (from < 0 || from > length) {
+            throw new IndexOutOfBoundsException("Index " + from + " out of bounds for length " + length);
+        }
+        return new String(bytes, offset + from, length - from, charset);
     }
 
     public String asciiValue() {
-        return asciiValue;
+        String value = asciiValue;
+        if (value == null) {
+            value = new String(bytes, offset, length, US_ASCII);
+            asciiValue = value;
+        }
+        return value;
     }
 
     @Override
     public String toString() {
         return "Event{" +
-            "asciiValue='" + asciiValue + '\'' +
+            "asciiValue='" + asciiValue() + '\'' +
             '}';
     }
 }
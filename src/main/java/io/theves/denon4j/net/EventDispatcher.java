@@ -31,4 +31,13 @@ public interface EventDispatcher {
      * @param event the received event.
      */
     void dispatch(Event event);
+
+    /**
+     * Invoked right before the command is written, by protocols that {@link Protocol#reportsWrites() report writes}.
+     *
+     * @param command the command about to be written.
+     */
+    default void sending(Command command) {
+        // not interested
+    }
 }
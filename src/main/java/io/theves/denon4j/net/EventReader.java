@@ -24,35 +24,35 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.Socket;
 import java.net.SocketException;
-import java.nio.ByteBuffer;
-import java.util.Arrays;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * @author stheves
  */
-class EventReader extends Thread {
+class EventReader implements Runnable {
 
     private final Logger logger = Logger.getLogger(EventReader.class.getName());
 
     private final Socket socket;
     private final Tcp client;
+    private final byte[] readBuffer = new byte[FrameDecoder.READ_BUFFER_SIZE];
+    private final FrameDecoder decoder;
 
     private InputStream reader;
 
     EventReader(Tcp client, Socket socket) {
-        super("EventReader");
         this.client = client;
         this.socket = socket;
+        this.decoder = new FrameDecoder(client::received);
     }
 
     @Override
     public void run() {
         openStream();
         logger.log(Level.FINE, "Listening for events...");
-        while (!isInterrupted()) {
-            next();
+        while (!Thread.currentThread().isInterrupted() && next()) {
+            // read until interrupted or end of stream
         }
         logger.log(Level.FINE, "Stopped.");
     }
@@ -65,24 +65,19 @@ class EventReader extends Thread {
         }
     }
 
-    private void next() {
+    private boolean next() {
         try {
-            int read;
-            ByteBuffer rawBuffer = ByteBuffer.allocate(135);
-            while ((read = reader.read()) != -1) {
-                if (Protocol.PAUSE == read || Protocol.NULL == read) {
-                    break;
-                }
-                rawBuffer.put((byte) read);
-            }
-            if (rawBuffer.position() > 0) {
-                Event e = Event.create(Arrays.copyOfRange(rawBuffer.array(), 0, rawBuffer.position()));
-                client.received(e);
+            int read = reader.read(readBuffer);
+            if (read == -1) {
+                return false;
             }
+            decoder.decode(readBuffer, 0, read);
+            return true;
         } catch (SocketException se) {
             if (!socket.isClosed() && !socket.isInputShutdown()) {
                 throw new ConnectionException("Socket error.", se);
             }
+            return false;
         } catch (Exception e) {
             throw new ConnectionException("Socket error.", e);
         }
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2017 Sascha Theves
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ * Modifications Copyright 2020 Codersparks
+ */
+
+
+package io.theves.denon4j.net;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Selects the kind of threads a {@link Protocol} runs its event reader and listener notification on.
+ *
+ * @see Protocol#tcp(String, int, ExecutionMode)
+ */
+public enum ExecutionMode {
+    /**
+     * Platform threads, available on every supported Java version. The threads are no daemons, like the event
+     * reader always was, so a connected receiver keeps the JVM running until it is disconnected.
+     */
+    PLATFORM,
+    /**
+     * Virtual threads, requires Java 21 or later. Virtual threads are always daemons, they do not keep the JVM
+     * running.
+     */
+    VIRTUAL;
+
+    private static final Method OF_VIRTUAL;
+    private static final Method NAME;
+    private static final Method FACTORY;
+
+    static {
+        Method ofVirtual = null;
+        Method name = null;
+        Method factory = null;
+        try {
+            // resolved reflectively to stay compatible with Java 11
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            name = builder.getMethod("name", String.class);
+            factory = builder.getMethod("factory");
+        } catch (ReflectiveOperationException e) {
+            // not available
+        }
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        FACTORY = factory;
+    }
+
+    /**
+     * Returns <code>true</code> if threads of this mode can be created on the running JVM.
+     *
+     * @return <code>true</code> if supported.
+     */
+    public boolean isSupported() {
+        return this == PLATFORM || OF_VIRTUAL != null;
+    }
+
+    /**
+     * Creates a factory for threads of this mode.
+     *
+     * @param name the name of the created threads.
+     * @return the thread factory.
+     * @throws UnsupportedOperationException if the mode is not supported by the running JVM.
+     */
+    public ThreadFactory threadFactory(String name) {
+        if (this == PLATFORM) {
+            return r -> {
+                Thread thread = new Thread(r, name);
+                thread.setDaemon(false);
+                return thread;
+            };
+        }
+        if (!isSupported()) {
+            throw new UnsupportedOperationException("Virtual threads require Java 21 or later.");
+        }
+        try {
+            Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), name);
+            return (ThreadFactory) FACTORY.invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw new UnsupportedOperationException("Virtual threads are not available.", e);
+        }
+    }
+}
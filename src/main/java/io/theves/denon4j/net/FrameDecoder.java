@@ -0,0 +1,125 @@
+/*
+ * Copyright 2017 Sascha Theves
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ * Modifications Copyright 2020 Codersparks
+ */
+
+
+package io.theves.denon4j.net;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Splits a byte stream into {@link Event}s at {@link Protocol#PAUSE} and {@link Protocol#NULL} delimiters.
+ * <p>
+ * Input is consumed in chunks and scanned in place. A frame that lies completely inside a chunk is copied
+ * exactly once into its event; only frames split across chunks are assembled in an internal buffer, which
+ * grows on demand up to {@link #MAX_FRAME_SIZE}. Not thread safe, use one decoder per connection.
+ */
+final class FrameDecoder {
+    static final int MAX_FRAME_SIZE = 8 * 1024;
+    // the chunk size of the transports, a frame of the maximum size fits into one read
+    static final int READ_BUFFER_SIZE = MAX_FRAME_SIZE;
+    private static final Logger logger = Logger.getLogger(FrameDecoder.class.getName());
+    private static final int INITIAL_FRAME_SIZE = 256;
+
+    private final Consumer<Event> sink;
+    private byte[] partial = new byte[INITIAL_FRAME_SIZE];
+    private int partialLength;
+    private boolean discarding;
+
+    FrameDecoder(Consumer<Event> sink) {
+        this.sink = Objects.requireNonNull(sink);
+    }
+
+    /**
+     * Decodes the given chunk and passes every completed frame to the sink.
+     *
+     * @param chunk  the bytes read.
+     * @param offset the offset of the first byte.
+     * @param length the number of bytes read.
+     */
+    void decode(byte[] chunk, int offset, int length) {
+        int start = offset;
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            byte b = chunk[i];
+            if (b == Protocol.PAUSE || b == Protocol.NULL) {
+                emit(chunk, start, i - start);
+                start = i + 1;
+            }
+        }
+        if (start < end) {
+            append(chunk, start, end - start);
+        }
+    }
+
+    /**
+     * Drops a partially received frame, e.g. after a reconnect.
+     */
+    void reset() {
+        partialLength = 0;
+        discarding = false;
+    }
+
+    private void emit(byte[] chunk, int start, int length) {
+        if (discarding) {
+            reset();
+            return;
+        }
+        byte[] frame;
+        if (partialLength == 0) {
+            if (length == 0) {
+                return;
+            }
+            frame = Arrays.copyOfRange(chunk, start, start + length);
+        } else {
+            append(chunk, start, length);
+            if (discarding) {
+                reset();
+                return;
+            }
+            frame = Arrays.copyOf(partial, partialLength);
+            partialLength = 0;
+        }
+        sink.accept(Event.create(frame));
+    }
+
+    private void append(byte[] chunk, int start, int length) {
+        if (discarding) {
+            return;
+        }
+        int required = partialLength + length;
+        if (required > MAX_FRAME_SIZE) {
+            logger.log(Level.WARNING, "Discarding frame exceeding " + MAX_FRAME_SIZE + " bytes");
+            discarding = true;
+            partialLength = 0;
+            return;
+        }
+        if (required > partial.length) {
+            partial = Arrays.copyOf(partial, Math.min(MAX_FRAME_SIZE, Math.max(required, partial.length * 2)));
+        }
+        System.arraycopy(chunk, start, partial, partialLength, length);
+        partialLength = required;
+    }
+}
@@ -0,0 +1,311 @@
+/*
+ * Copyright 2017 Sascha Theves
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ * Modifications Copyright 2020 Codersparks
+ */
+
+
+package io.theves.denon4j.net;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Non-blocking {@link Protocol} that runs on a shared {@link NioTransport}.
+ * <p>
+ * Unlike {@link Tcp} this client owns no thread: reads, writes and event dispatching happen on the
+ * I/O thread of the transport it was assigned to. {@link #send(Command)} enqueues the command and returns
+ * without waiting for the bytes to be written. The I/O thread writes queued commands paced by
+ * the {@link OutboundQueue}.
+ */
+final class NioTcp implements Protocol {
+    private static final Logger logger = Logger.getLogger(NioTcp.class.getName());
+
+    private final String host;
+    private final Integer port;
+    private final NioTransport.Loop loop;
+    private final OutboundQueue outbound = new OutboundQueue();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final FrameDecoder decoder = new FrameDecoder(this::received);
+
+    private EventDispatcher eventDispatcher;
+    private volatile SocketChannel channel;
+    private volatile CompletableFuture<Void> connectFuture;
+    // only accessed by the loop thread
+    private SelectionKey key;
+    private List<OutboundQueue.Entry> writing;
+    private ByteBuffer[] writingBuffers;
+    private boolean timerArmed;
+
+    NioTcp(String host, Integer port, NioTransport transport) {
+        this.host = Optional.ofNullable(host).orElse("127.0.0.1");
+        this.port = Optional.ofNullable(port).orElse(23);
+        this.loop = Objects.requireNonNull(transport).nextLoop();
+    }
+
+    @Override
+    public void establishConnection(int timeout) throws ConnectException {
+        if (isConnected()) {
+            throw new ConnectException("Already connected.");
+        }
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        try {
+            SocketChannel ch = SocketChannel.open();
+            ch.configureBlocking(false);
+            ch.setOption(StandardSocketOptions.SO_KEEPALIVE, true);
+            boolean connected = ch.connect(new InetSocketAddress(host, port));
+            channel = ch;
+            connectFuture = future;
+            loop.execute(() -> register(connected));
+            if (timeout > 0) {
+                future.get(timeout, TimeUnit.MILLISECONDS);
+            } else {
+                future.get();
+            }
+        } catch (java.util.concurrent.TimeoutException te) {
+            close();
+            throw new TimeoutException("Could not establish connection within timeout of " + timeout + " ms.", te);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new ConnectException("Interrupted while connecting to host/ip " + host + " on port " + port, ie);
+        } catch (ExecutionException | IOException e) {
+            close();
+            Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+            throw new ConnectException("Cannot establishConnection to host/ip " + host + " on port " + port, cause);
+        }
+    }
+
+    private void register(boolean connected) {
+        decoder.reset();
+        // runs after the close of a previous connection failed the queue
+        outbound.open();
+        try {
+            key = loop.register(channel, connected ? SelectionKey.OP_READ : SelectionKey.OP_CONNECT, this);
+            if (connected) {
+                connectFuture.complete(null);
+            }
+        } catch (IOException e) {
+            connectFuture.completeExceptionally(e);
+        }
+    }
+
+    void onConnectable() throws IOException {
+        if (channel.finishConnect()) {
+            key.interestOps(SelectionKey.OP_READ);
+            connectFuture.complete(null);
+        }
+    }
+
+    void onReadable(ByteBuffer buffer) throws IOException {
+        buffer.clear();
+        int read = channel.read(buffer);
+        if (read == -1) {
+            logger.log(Level.FINE, "Connection closed by {0}", host + ":" + port);
+            close();
+            return;
+        }
+        decoder.decode(buffer.array(), 0, read);
+    }
+
+    void onWritable() throws IOException {
+        if (key == null || !key.isValid()) {
+            if (writing != null) {
+                outbound.fail(writing, new ConnectionException("Not connected."));
+                writing = null;
+            }
+            return;
+        }
+        while (true) {
+            if (writing == null) {
+                long now = System.nanoTime();
+                long delay = outbound.delayNanos(now);
+                if (delay != 0) {
+                    key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+                    if (delay > 0) {
+                        armTimer(delay);
+                    }
+                    return;
+                }
+                writing = outbound.poll(now);
+                writing.forEach(entry -> sending(entry.command));
+                writingBuffers = writing.stream().map(entry -> entry.bytes.duplicate()).toArray(ByteBuffer[]::new);
+            }
+            // gathering write, a coalesced batch needs a single call
+            channel.write(writingBuffers);
+            if (writingBuffers[writingBuffers.length - 1].hasRemaining()) {
+                key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+                return;
+            }
+            List<OutboundQueue.Entry> written = writing;
+            writing = null;
+            writingBuffers = null;
+            outbound.written(written);
+        }
+    }
+
+    private void armTimer(long delayNanos) {
+        if (!timerArmed) {
+            timerArmed = true;
+            loop.schedule(() -> {
+                timerArmed = false;
+                flush();
+            }, delayNanos);
+        }
+    }
+
+    void onFailure(Exception e) {
+        CompletableFuture<Void> future = connectFuture;
+        if (future != null && !future.isDone()) {
+            future.completeExceptionally(e);
+        } else {
+            logger.log(Level.WARNING, "Communication failure with " + host + ":" + port, e);
+        }
+        close();
+    }
+
+    private void received(Event event) {
+        logger.log(Level.FINE, "Event received: {0}", event);
+        if (null != eventDispatcher) {
+            try {
+                eventDispatcher.dispatch(event);
+            } catch (Exception e) {
+                logger.log(Level.WARNING, "Error while invoking event dispatcher", e);
+            }
+        }
+    }
+
+    private void sending(Command command) {
+        if (null != eventDispatcher) {
+            try {
+                eventDispatcher.sending(command);
+            } catch (Exception e) {
+                logger.log(Level.WARNING, "Error while invoking event dispatcher", e);
+            }
+        }
+    }
+
+    @Override
+    public void send(Command command) {
+        sendAsync(command);
+    }
+
+    @Override
+    public CompletableFuture<Void> sendAsync(Command command) {
+        if (!isConnected()) {
+            throw new ConnectionException("Not connected.");
+        }
+        OutboundQueue.Entry entry = outbound.add(command);
+        scheduleFlush();
+        logger.log(Level.FINE, "Command queued: {0}", command.signature());
+        return entry.written.copy();
+    }
+
+    @Override
+    public boolean reportsWrites() {
+        return true;
+    }
+
+    @Override
+    public void setCommandInterval(Duration interval) {
+        outbound.setInterval(interval);
+        scheduleFlush();
+    }
+
+    @Override
+    public OutboundStats outboundStats() {
+        return outbound.stats();
+    }
+
+    private void scheduleFlush() {
+        if (flushScheduled.compareAndSet(false, true)) {
+            loop.execute(this::flush);
+        }
+    }
+
+    private void flush() {
+        flushScheduled.set(false);
+        try {
+            onWritable();
+        } catch (IOException e) {
+            onFailure(e);
+        }
+    }
+
+    @Override
+    public void setDispatcher(EventDispatcher eventDispatcher) {
+        this.eventDispatcher = eventDispatcher;
+    }
+
+    @Override
+    public boolean isConnected() {
+        SocketChannel ch = channel;
+        return null != ch && ch.isOpen() && ch.isConnected();
+    }
+
+    @Override
+    public void disconnect() {
+        if (!isConnected()) {
+            return;
+        }
+        close();
+    }
+
+    private void close() {
+        SocketChannel ch = channel;
+        if (ch != null) {
+            try {
+                // thread safe, also cancels the selection key
+                ch.close();
+            } catch (IOException e) {
+                logger.log(Level.FINE, "Disconnect failure", e);
+            }
+        }
+        if (loop.inLoop()) {
+            closed();
+        } else {
+            loop.execute(this::closed);
+        }
+    }
+
+    /**
+     * Fails the batch being written and the queued commands. Runs on the loop thread, which owns the batch.
+     */
+    private void closed() {
+        List<OutboundQueue.Entry> batch = writing == null ? Collections.emptyList() : writing;
+        writing = null;
+        writingBuffers = null;
+        outbound.fail(batch, new ConnectionException("Disconnected."));
+    }
+}
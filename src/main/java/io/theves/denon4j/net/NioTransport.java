@@ -0,0 +1,247 @@
+/*
+ * Copyright 2017 Sascha Theves
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ * Modifications Copyright 2020 Codersparks
+ */
+
+
+package io.theves.denon4j.net;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Shared non-blocking transport that multiplexes the connections of many receivers
+ * onto a small, fixed pool of I/O threads.
+ * <p>
+ * Each I/O thread owns one {@link Selector}. Connections created via
+ * {@link Protocol#tcp(String, int, NioTransport)} are assigned to the threads round-robin.
+ * Events are dispatched on the I/O thread, so listeners must not block.
+ */
+public final class NioTransport implements AutoCloseable {
+    private static final Logger logger = Logger.getLogger(NioTransport.class.getName());
+
+    private final Loop[] loops;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public NioTransport(int ioThreads) {
+        if (ioThreads < 1) {
+            throw new IllegalArgumentException("ioThreads must be >= 1");
+        }
+        this.loops = new Loop[ioThreads];
+        for (int i = 0; i < ioThreads; i++) {
+            loops[i] = new Loop("NioTransport-" + i);
+        }
+        for (Loop loop : loops) {
+            loop.thread.start();
+        }
+    }
+
+    /**
+     * Creates a transport with one I/O thread per two available processors.
+     *
+     * @return the transport.
+     */
+    public static NioTransport create() {
+        return new NioTransport(Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+    }
+
+    public int ioThreads() {
+        return loops.length;
+    }
+
+    Loop nextLoop() {
+        return loops[Math.floorMod(next.getAndIncrement(), loops.length)];
+    }
+
+    @Override
+    public void close() {
+        for (Loop loop : loops) {
+            loop.shutdown();
+        }
+    }
+
+    /**
+     * Single selector thread. All channel registration and interest changes happen on this thread.
+     */
+    static final class Loop implements Runnable {
+        private final Selector selector;
+        private final Thread thread;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final PriorityQueue<Timer> timers = new PriorityQueue<>(Comparator.comparingLong(t -> t.deadline));
+        // shared by all channels of this loop, only touched by the loop thread
+        private final ByteBuffer readBuffer = ByteBuffer.allocate(FrameDecoder.READ_BUFFER_SIZE);
+        private volatile boolean running = true;
+
+        private Loop(String name) {
+            try {
+                this.selector = Selector.open();
+            } catch (IOException e) {
+                throw new ConnectionException("Cannot open selector.", e);
+            }
+            this.thread = new Thread(this, name);
+            this.thread.setDaemon(true);
+        }
+
+        void execute(Runnable task) {
+            tasks.add(task);
+            if (Thread.currentThread() != thread) {
+                selector.wakeup();
+            }
+        }
+
+        boolean inLoop() {
+            return Thread.currentThread() == thread;
+        }
+
+        /**
+         * Runs the task on the loop thread after the delay. Must be called from the loop thread.
+         */
+        void schedule(Runnable task, long delayNanos) {
+            timers.add(new Timer(System.nanoTime() + delayNanos, task));
+        }
+
+        SelectionKey register(SelectableChannel channel, int ops, NioTcp handler) throws ClosedChannelException {
+            return channel.register(selector, ops, handler);
+        }
+
+        @Override
+        public void run() {
+            logger.log(Level.FINE, "I/O loop started.");
+            while (running) {
+                try {
+                    select();
+                    runTasks();
+                    processSelectedKeys();
+                    runTimers();
+                } catch (Exception e) {
+                    logger.log(Level.WARNING, "Error in I/O loop", e);
+                }
+            }
+            // e.g. connections closed by callers, the tasks fail their commands
+            runTasks();
+            closeSelector();
+            runTasks();
+            logger.log(Level.FINE, "I/O loop stopped.");
+        }
+
+        private void select() throws IOException {
+            Timer next = timers.peek();
+            if (next == null) {
+                selector.select();
+                return;
+            }
+            long remaining = next.deadline - System.nanoTime();
+            if (remaining <= 0) {
+                selector.selectNow();
+            } else {
+                // round up, select(0) would block forever
+                selector.select(TimeUnit.NANOSECONDS.toMillis(remaining + TimeUnit.MILLISECONDS.toNanos(1) - 1));
+            }
+        }
+
+        private void runTimers() {
+            long now = System.nanoTime();
+            Timer next;
+            while ((next = timers.peek()) != null && next.deadline - now <= 0) {
+                timers.poll();
+                try {
+                    next.task.run();
+                } catch (Exception e) {
+                    logger.log(Level.WARNING, "Error while running I/O timer", e);
+                }
+            }
+        }
+
+        private void runTasks() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    logger.log(Level.WARNING, "Error while running I/O task", e);
+                }
+            }
+        }
+
+        private void processSelectedKeys() {
+            Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+            while (it.hasNext()) {
+                SelectionKey key = it.next();
+                it.remove();
+                NioTcp handler = (NioTcp) key.attachment();
+                try {
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isConnectable()) {
+                        handler.onConnectable();
+                    }
+                    if (key.isValid() && key.isReadable()) {
+                        handler.onReadable(readBuffer);
+                    }
+                    if (key.isValid() && key.isWritable()) {
+                        handler.onWritable();
+                    }
+                } catch (Exception e) {
+                    handler.onFailure(e);
+                }
+            }
+        }
+
+        private void shutdown() {
+            running = false;
+            selector.wakeup();
+        }
+
+        private void closeSelector() {
+            for (SelectionKey key : selector.keys()) {
+                ((NioTcp) key.attachment()).onFailure(new ConnectionException("Transport closed."));
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                logger.log(Level.FINE, "Failed to close selector", e);
+            }
+        }
+    }
+
+    private static final class Timer {
+        private final long deadline;
+        private final Runnable task;
+
+        private Timer(long deadline, Runnable task) {
+            this.deadline = deadline;
+            this.task = task;
+        }
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright 2017 Sascha Theves
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ * Modifications Copyright 2020 Codersparks
+ */
+
+
+package io.theves.denon4j.net;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Per connection queue of outbound commands that paces the single writer of the connection.
+ * <p>
+ * Consecutive writes are at least {@link #getInterval()} apart, which the AVR needs to process every command.
+ * With an interval of zero all commands that are ready are handed to the writer as one batch so they can be
+ * written with a single call.
+ * <p>
+ * Once failed, e.g. because the connection was closed, the queue fails every added command until it is
+ * {@link #open() opened} again.
+ */
+final class OutboundQueue {
+    /**
+     * The protocol spec asks for at least 50 ms between two commands.
+     */
+    static final Duration DEFAULT_INTERVAL = Duration.ofMillis(50);
+
+    private final Lock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final Deque<Entry> entries = new ArrayDeque<>();
+
+    private long intervalNanos = DEFAULT_INTERVAL.toNanos();
+    private long lastWriteNanos;
+    private boolean anyWritten;
+    private long sent;
+    private long totalWaitNanos;
+    private long maxWaitNanos;
+    // set when failed, fails the commands added later
+    private Throwable failure;
+
+    Entry add(Command command) {
+        Entry entry = new Entry(command, System.nanoTime());
+        Throwable cause;
+        lock.lock();
+        try {
+            cause = failure;
+            if (cause == null) {
+                entries.addLast(entry);
+                changed.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (cause != null) {
+            entry.written.completeExceptionally(cause);
+        }
+        return entry;
+    }
+
+    /**
+     * Accepts commands again after the queue failed, e.g. when reconnected.
+     */
+    void open() {
+        lock.lock();
+        try {
+            failure = null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void setInterval(Duration interval) {
+        if (interval == null || interval.isNegative()) {
+            throw new IllegalArgumentException("Interval must not be negative");
+        }
+        lock.lock();
+        try {
+            intervalNanos = interval.toNanos();
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    Duration getInterval() {
+        lock.lock();
+        try {
+            return Duration.ofNanos(intervalNanos);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the time until the next batch may be written.
+     *
+     * @param now the current {@link System#nanoTime()}.
+     * @return the delay in nanos, <code>0</code> if ready or <code>-1</code> if nothing is queued.
+     */
+    long delayNanos(long now) {
+        lock.lock();
+        try {
+            return delay(now);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long delay(long now) {
+        if (entries.isEmpty()) {
+            return -1;
+        }
+        if (!anyWritten || intervalNanos == 0) {
+            return 0;
+        }
+        return Math.max(0, lastWriteNanos + intervalNanos - now);
+    }
+
+    /**
+     * Removes the next batch if it may be written now.
+     *
+     * @param now the current {@link System#nanoTime()}.
+     * @return the batch, empty if none is ready.
+     */
+    List<Entry> poll(long now) {
+        lock.lock();
+        try {
+            return pollReady(now);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private List<Entry> pollReady(long now) {
+        if (delay(now) != 0) {
+            return Collections.emptyList();
+        }
+        if (intervalNanos > 0) {
+            return Collections.singletonList(entries.pollFirst());
+        }
+        List<Entry> batch = new ArrayList<>(entries);
+        entries.clear();
+        return batch;
+    }
+
+    /**
+     * Waits until the next batch may be written and removes it.
+     *
+     * @return the batch.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    List<Entry> take() throws InterruptedException {
+        lock.lock();
+        try {
+            while (true) {
+                long delay = delay(System.nanoTime());
+                if (delay == 0) {
+                    return pollReady(System.nanoTime());
+                } else if (delay < 0) {
+                    changed.await();
+                } else {
+                    changed.awaitNanos(delay);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records that the batch has been written and completes the futures of its commands.
+     *
+     * @param batch the batch.
+     */
+    void written(List<Entry> batch) {
+        long now = System.nanoTime();
+        lock.lock();
+        try {
+            lastWriteNanos = now;
+            anyWritten = true;
+            for (Entry entry : batch) {
+                long wait = now - entry.enqueuedNanos;
+                sent++;
+                totalWaitNanos += wait;
+                maxWaitNanos = Math.max(maxWaitNanos, wait);
+            }
+        } finally {
+            lock.unlock();
+        }
+        batch.forEach(entry -> entry.written.complete(null));
+    }
+
+    /**
+     * Fails the given batch, every queued command and the commands added until the queue is opened again.
+     *
+     * @param batch the batch that could not be written.
+     * @param cause the failure.
+     */
+    void fail(List<Entry> batch, Throwable cause) {
+        List<Entry> failed = new ArrayList<>(batch);
+        lock.lock();
+        try {
+            failure = cause;
+            failed.addAll(entries);
+            entries.clear();
+        } finally {
+            lock.unlock();
+        }
+        failed.forEach(entry -> entry.written.completeExceptionally(cause));
+    }
+
+    OutboundStats stats() {
+        lock.lock();
+        try {
+            return new OutboundStats(entries.size(), sent,
+                Duration.ofNanos(sent == 0 ? 0 : totalWaitNanos / sent), Duration.ofNanos(maxWaitNanos));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    static final class Entry {
+        final Command command;
+        final ByteBuffer bytes;
+        final long enqueuedNanos;
+        final CompletableFuture<Void> written = new CompletableFuture<>();
+
+        private Entry(Command command, long enqueuedNanos) {
+            this.command = command;
+            this.bytes = ByteBuffer.wrap((command.signature() + Protocol.PAUSE).getBytes(US_ASCII));
+            this.enqueuedNanos = enqueuedNanos;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2017 Sascha Theves
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ * Modifications Copyright 2020 Codersparks
+ */
+
+
+package io.theves.denon4j.net;
+
+import java.time.Duration;
+
+/**
+ * Snapshot of the outbound command queue of a connection.
+ */
+public final class OutboundStats {
+    public static final OutboundStats EMPTY = new OutboundStats(0, 0, Duration.ZERO, Duration.ZERO);
+
+    private final int queueDepth;
+    private final long sent;
+    private final Duration averageWait;
+    private final Duration maxWait;
+
+    public OutboundStats(int queueDepth, long sent, Duration averageWait, Duration maxWait) {
+        this.queueDepth = queueDepth;
+        this.sent = sent;
+        this.averageWait = averageWait;
+        this.maxWait = maxWait;
+    }
+
+    /**
+     * Commands waiting to be written.
+     *
+     * @return the queue depth.
+     */
+    public int queueDepth() {
+        return queueDepth;
+    }
+
+    /**
+     * Commands written since the connection was created.
+     *
+     * @return the number of written commands.
+     */
+    public long sent() {
+        return sent;
+    }
+
+    /**
+     * Average time between queueing a command and writing it.
+     *
+     * @return the average wait.
+     */
+    public Duration averageWait() {
+        return averageWait;
+    }
+
+    public Duration maxWait() {
+        return maxWait;
+    }
+
+    @Override
+    public String toString() {
+        return "OutboundStats{" +
+            "queueDepth=" + queueDepth +
+            ", sent=" + sent +
+            ", averageWait=" + averageWait +
+            ", maxWait=" + maxWait +
+            '}';
+    }
+}
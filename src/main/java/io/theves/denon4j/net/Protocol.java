@@ -19,6 +19,9 @@
 
 package io.theves.denon4j.net;
 
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Low-level network client for communication with AVR.
  *
@@ -33,14 +36,82 @@ public interface Protocol {
     }
 
     /**
-     * Sends the command to the receiver (socket) and waits for a response
-     * (blocking).
+     * Creates a client whose event reader runs on a thread of the given <code>mode</code>.
+     *
+     * @param host the receiver`s host.
+     * @param port the receiver`s port.
+     * @param mode the execution mode, {@link ExecutionMode#VIRTUAL} requires Java 21.
+     * @return the client.
+     */
+    static Protocol tcp(String host, int port, ExecutionMode mode) {
+        return new Tcp(host, port, mode);
+    }
+
+    /**
+     * Creates a client that shares the I/O threads of the given <code>transport</code> with other clients.
+     *
+     * @param host      the receiver`s host.
+     * @param port      the receiver`s port.
+     * @param transport the shared transport.
+     * @return the client.
+     */
+    static Protocol tcp(String host, int port, NioTransport transport) {
+        return new NioTcp(host, port, transport);
+    }
+
+    /**
+     * Sends the command to the receiver (socket). Paced implementations queue the command and return
+     * before it is written, use {@link #sendAsync(Command)} to learn when it was.
      *
      * @param command the command to send (not <code>null</code>).
      * @throws ConnectionException if a communication failure occurs.
      */
     void send(Command command);
 
+    /**
+     * Sends the command to the receiver.
+     *
+     * @param command the command to send (not <code>null</code>).
+     * @return a future that is completed once the command was written to the socket.
+     */
+    default CompletableFuture<Void> sendAsync(Command command) {
+        try {
+            send(command);
+            return CompletableFuture.completedFuture(null);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Returns <code>true</code> if this protocol invokes {@link EventDispatcher#sending(Command)} before it
+     * writes a command, e.g. because commands are queued.
+     *
+     * @return <code>true</code> if writes are reported.
+     */
+    default boolean reportsWrites() {
+        return false;
+    }
+
+    /**
+     * Sets the minimum interval between two commands written to the receiver.
+     * An interval of zero allows commands that are ready together to be written at once.
+     *
+     * @param interval the interval, defaults to 50 ms.
+     */
+    default void setCommandInterval(Duration interval) {
+        // not paced
+    }
+
+    /**
+     * Returns statistics of the outbound command queue.
+     *
+     * @return the statistics.
+     */
+    default OutboundStats outboundStats() {
+        return OutboundStats.EMPTY;
+    }
+
     /**
      * Sets the event dispatcher for this protocol.
      * The event dispatcher is registered to the event bus for receiving all events of the AVR.
@@ -19,20 +19,25 @@
 
 package io.theves.denon4j.net;
 
-import java.io.BufferedWriter;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
-import java.io.Writer;
+import java.io.OutputStream;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.SocketTimeoutException;
-import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * Sends the actual bytes of a command to the receiver.
+ * <p>
+ * Commands are queued and written by a single writer thread that keeps the configured
+ * interval between two commands.
  *
  * @author stheves
  */
@@ -40,17 +45,27 @@ final class Tcp implements Protocol {
     private final Logger logger = Logger.getLogger(Tcp.class.getName());
     private final Integer port;
     private final String host;
-    private final EventReader eventReader;
+    private final Thread eventReader;
+    private final Thread commandWriter;
+    private final OutboundQueue outbound = new OutboundQueue();
 
     private EventDispatcher eventDispatcher;
     private Socket socket;
-    private Writer writer;
+    private OutputStream out;
+    private volatile ConnectionException writeFailure;
+    // a closed socket still reports to be connected
+    private volatile boolean closed;
 
     Tcp(String host, Integer port) {
+        this(host, port, ExecutionMode.PLATFORM);
+    }
+
+    Tcp(String host, Integer port, ExecutionMode mode) {
         this.host = Optional.ofNullable(host).orElse("127.0.0.1");
         this.port = Optional.ofNullable(port).orElse(23);
         socket = new Socket();
-        eventReader = new EventReader(this, socket);
+        eventReader = mode.threadFactory("EventReader").newThread(new EventReader(this, socket));
+        commandWriter = mode.threadFactory("CommandWriter").newThread(this::writeCommands);
     }
 
     void received(Event event) {
@@ -68,6 +83,16 @@ final class Tcp implements Protocol {
         }
     }
 
+    private void sending(Command command) {
+        if (null != eventDispatcher) {
+            try {
+                eventDispatcher.sending(command);
+            } catch (Exception e) {
+                logger.log(Level.WARNING, "Error while invoking event dispatcher", e);
+            }
+        }
+    }
+
     @Override
     public void establishConnection(int timeout) throws ConnectException {
         if (isConnected()) {
@@ -78,9 +103,10 @@ final class Tcp implements Protocol {
             socket.setKeepAlive(true);
             socket.connect(new InetSocketAddress(host, port), timeout);
 
-            writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII));
+            out = new BufferedOutputStream(socket.getOutputStream());
 
             eventReader.start();
+            commandWriter.start();
         } catch (SocketTimeoutException ste) {
             throw new TimeoutException("Could not establish connection within timeout of " + timeout + " ms.", ste);
         } catch (IOException e) {
@@ -91,7 +117,7 @@ final class Tcp implements Protocol {
 
     @Override
     public boolean isConnected() {
-        return null != socket && socket.isConnected();
+        return !closed && null != socket && socket.isConnected();
     }
 
     @Override
@@ -99,19 +125,42 @@ final class Tcp implements Protocol {
         if (!isConnected()) {
             return;
         }
+        closed = true;
         try {
             eventReader.interrupt();
+            commandWriter.interrupt();
             socket.close();
         } catch (IOException e) {
             // ignore
             logger.log(Level.FINE, "Disconnect failure", e);
         }
+        outbound.fail(Collections.emptyList(), new ConnectionException("Disconnected."));
     }
 
     @Override
     public void send(Command command) {
+        sendAsync(command);
+    }
+
+    @Override
+    public CompletableFuture<Void> sendAsync(Command command) {
         checkConnection();
-        doSend(command);
+        return outbound.add(command).written.copy();
+    }
+
+    @Override
+    public boolean reportsWrites() {
+        return true;
+    }
+
+    @Override
+    public void setCommandInterval(Duration interval) {
+        outbound.setInterval(interval);
+    }
+
+    @Override
+    public OutboundStats outboundStats() {
+        return outbound.stats();
     }
 
     @Override
@@ -124,16 +173,33 @@ final class Tcp implements Protocol {
         if (!isConnected()) {
             throw new ConnectionException("Not connected.");
         }
+        if (writeFailure != null) {
+            throw writeFailure;
+        }
     }
 
-    private void doSend(Command command) {
-        synchronized (eventReader) {
+    private void writeCommands() {
+        while (!Thread.currentThread().isInterrupted()) {
+            List<OutboundQueue.Entry> batch;
             try {
-                writer.write(command.signature() + PAUSE);
-                writer.flush();
-                logger.log(Level.FINE, "Command sent: {0}", command.signature());
-            } catch (Exception e) {
-                throw new ConnectionException("Communication failure.", e);
+                batch = outbound.take();
+            } catch (InterruptedException e) {
+                break;
+            }
+            batch.forEach(entry -> sending(entry.command));
+            try {
+                for (OutboundQueue.Entry entry : batch) {
+                    out.write(entry.bytes.array());
+                }
+                // one flush for the whole batch
+                out.flush();
+                outbound.written(batch);
+                logger.log(Level.FINE, "Commands sent: {0}", batch.size());
+            } catch (IOException e) {
+                writeFailure = new ConnectionException("Communication failure.", e);
+                outbound.fail(batch, writeFailure);
+                logger.log(socket.isClosed() ? Level.FINE : Level.WARNING, "Communication failure", e);
+                break;
             }
         }
     }
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2017 Sascha Theves
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package io.theves.denon4j;
+
+import io.theves.denon4j.AsyncListener.Overflow;
+import io.theves.denon4j.net.Event;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test for delivering events to listeners on their own executor.
+ */
+public class AsyncListenerTest {
+    private List<String> received;
+    private List<Runnable> tasks;
+
+    @Before
+    public void setup() {
+        received = new CopyOnWriteArrayList<>();
+        tasks = new ArrayList<>();
+    }
+
+    @Test
+    public void testDropOldest() {
+        AsyncListener listener = new AsyncListener(event -> received.add(event.asciiValue()), 2,
+            Overflow.DROP_OLDEST, tasks::add);
+        feed(listener, "MV450", "MV455", "MUON", "MV460");
+
+        assertThat(listener.queued()).isEqualTo(2);
+        assertThat(listener.dropped()).isEqualTo(2);
+        assertThat(listener.lag()).isGreaterThan(Duration.ZERO);
+        runTasks();
+        assertThat(received).containsExactly("MUON", "MV460");
+        assertThat(listener.delivered()).isEqualTo(2);
+        assertThat(listener.queued()).isZero();
+    }
+
+    @Test
+    public void testConflate() {
+        AsyncListener listener = new AsyncListener(event -> received.add(event.asciiValue()), 3,
+            Overflow.CONFLATE, tasks::add);
+        feed(listener, "MV450", "PWON", "CVFL 50", "MV455", "PWSTANDBY", "SICD", "MUON", "MUOFF", "SIDVD");
+
+        assertThat(listener.dropped()).isEqualTo(6);
+        runTasks();
+        // newer values take the place of the queued ones, a new prefix drops the oldest
+        assertThat(received).containsExactly("CVFL 50", "SIDVD", "MUOFF");
+    }
+
+    @Test
+    public void testConflateByPrefix() {
+        AsyncListener listener = new AsyncListener(event -> received.add(event.asciiValue()), 1,
+            Overflow.CONFLATE, tasks::add);
+        feed(listener, "PWON", "PWSTANDBY");
+
+        assertThat(listener.dropped()).isEqualTo(1);
+        runTasks();
+        assertThat(received).containsExactly("PWSTANDBY");
+        assertThat(EventQueue.prefixOf(Event.create("NSE0Now Playing".getBytes())))
+            .isEqualTo(EventQueue.prefixOf(Event.create("NSE8".getBytes())));
+        assertThat(EventQueue.prefixOf(Event.create("M".getBytes()))).isEqualTo(-1);
+    }
+
+    @Test
+    public void testBlockDeliversOnOwnThread() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> threads = new CopyOnWriteArrayList<>();
+        AsyncListener listener = new AsyncListener(event -> {
+            threads.add(Thread.currentThread().getName());
+            awaitQuietly(release);
+            received.add(event.asciiValue());
+        }, 1, Overflow.BLOCK);
+
+        Thread reader = new Thread(() -> feed(listener, "MV450", "MV455", "MV460"));
+        reader.start();
+        reader.join(200);
+        // the first event is being delivered, the second queued, the third waits for room
+        assertThat(reader.isAlive()).isTrue();
+        release.countDown();
+        reader.join(5000);
+        assertThat(reader.isAlive()).isFalse();
+        listener.close();
+        while (listener.delivered() < 3) {
+            Thread.sleep(10);
+        }
+        assertThat(received).containsExactly("MV450", "MV455", "MV460");
+        assertThat(listener.dropped()).isZero();
+        assertThat(threads).allMatch(name -> name.startsWith("AsyncListener-"));
+    }
+
+    private static void feed(AsyncListener listener, String... events) {
+        for (String event : events) {
+            listener.received(Event.create(event.getBytes()));
+        }
+    }
+
+    private void runTasks() {
+        while (!tasks.isEmpty()) {
+            tasks.remove(0).run();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
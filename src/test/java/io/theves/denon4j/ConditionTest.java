@@ -0,0 +1,69 @@
+/*
+ * Copyright 2017 Sascha Theves
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package io.theves.denon4j;
+
+import io.theves.denon4j.net.Event;
+import org.junit.Test;
+
+import static io.theves.denon4j.Condition.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test for evaluating conditions while a response is received.
+ */
+public class ConditionTest {
+
+    @Test
+    public void testIncrementalEvaluation() {
+        RecvContext ctx = new RecvContext(allMatch(regex("NSE.*"), size(3)));
+        assertThat(ctx.fulfilled()).isFalse();
+        assertThat(ctx.add(event("MVMAX 98"))).isFalse();
+        assertThat(ctx.add(event("NSE0Now Playing"))).isFalse();
+        assertThat(ctx.add(event("MV455"))).isTrue();
+        assertThat(ctx.fulfilled()).isTrue();
+        // the non incremental check agrees
+        assertThat(allMatch(regex("NSE.*"), size(3)).fulfilled(ctx)).isTrue();
+    }
+
+    @Test
+    public void testRegexMatchesWholeEvent() {
+        RecvContext ctx = new RecvContext(anyMatch(regex("MV\\d\\d\\d?"), regex("PW.*")));
+        assertThat(ctx.add(event("MVMAX 98"))).isFalse();
+        assertThat(ctx.add(event("XPWON"))).isFalse();
+        assertThat(ctx.add(event("MV4555"))).isFalse();
+        assertThat(ctx.add(event("PWSTANDBY"))).isTrue();
+
+        ctx = new RecvContext(regex("MV\\d\\d\\d?"));
+        assertThat(ctx.add(event("MV455"))).isTrue();
+    }
+
+    @Test
+    public void testCustomCondition() {
+        RecvContext ctx = new RecvContext(allMatch(bool(true), c -> c.received().size() == 2));
+        assertThat(ctx.fulfilled()).isFalse();
+        assertThat(ctx.add(event("PWON"))).isFalse();
+        assertThat(ctx.add(event("PWON"))).isTrue();
+    }
+
+    private static Event event(String value) {
+        return Event.create(value.getBytes());
+    }
+}
@@ -22,12 +22,23 @@ package io.theves.denon4j;
 import io.theves.denon4j.controls.*;
 import io.theves.denon4j.net.Command;
 import io.theves.denon4j.net.ConnectException;
+import io.theves.denon4j.net.ConnectionException;
 import io.theves.denon4j.net.Event;
 import io.theves.denon4j.net.Protocol;
+import io.theves.denon4j.net.TimeoutException;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.InOrder;
 
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
 import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
 import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
 import static org.mockito.Mockito.*;
@@ -104,6 +115,34 @@ public class ControlsTest {
         verify(protocol).send(cmd("PWON"));
     }
 
+    @Test
+    public void testToggleFromCachedState() {
+        denonAvr192.state().setMaxAge(Duration.ofMinutes(1));
+        Toggle mute = denonAvr192.mute();
+        denonAvr192.dispatch(Event.create("MUON".getBytes()));
+        mute.toggle();
+        verify(protocol).send(cmd("MUOFF"));
+        // the receiver confirms the new state
+        denonAvr192.dispatch(Event.create("MUOFF".getBytes()));
+        mute.toggle();
+        verify(protocol).send(cmd("MUON"));
+        verify(protocol, never()).send(cmd("MU?"));
+
+        // unknown until confirmed and after reconnecting, verified by a query
+        doAnswer(invocationOnMock -> {
+            denonAvr192.dispatch(Event.create("MUON".getBytes()));
+            return null;
+        }).when(protocol).send(cmd("MU?"));
+        mute.toggle();
+        verify(protocol, times(1)).send(cmd("MU?"));
+        verify(protocol, times(2)).send(cmd("MUOFF"));
+        denonAvr192.connect(137);
+        assertThat(denonAvr192.state().get(mute)).isEmpty();
+        mute.toggle();
+        verify(protocol, times(2)).send(cmd("MU?"));
+        verify(protocol, times(3)).send(cmd("MUOFF"));
+    }
+
     @Test
     public void testMasterSlider() {
         Slider slider = denonAvr192.masterVolume();
@@ -147,6 +186,253 @@ public class ControlsTest {
         verify(protocol).send(cmd("NS91"));
     }
 
+    @Test
+    public void testPipelinedRequests() {
+        denonAvr192.enablePipelining(5);
+        // answer only once all requests are in flight, out of order and with an unrelated MV event
+        doAnswer(invocationOnMock -> {
+            denonAvr192.dispatch(Event.create("MUOFF".getBytes()));
+            denonAvr192.dispatch(Event.create("MVMAX 98".getBytes()));
+            denonAvr192.dispatch(Event.create("MV455".getBytes()));
+            denonAvr192.dispatch(Event.create("PWON".getBytes()));
+            return null;
+        }).when(protocol).send(cmd("MU?"));
+
+        Map<String, Condition> requests = new LinkedHashMap<>();
+        requests.put("PW?", Condition.regex("PW.*"));
+        requests.put("MV?", Condition.regex("MV\\d\\d\\d?"));
+        requests.put("MU?", Condition.regex("MU.*"));
+        Map<String, List<Event>> responses = denonAvr192.sendAll(requests);
+
+        assertThat(responses.keySet()).containsExactly("PW?", "MV?", "MU?");
+        assertThat(responses.get("PW?")).extracting(Event::asciiValue).containsExactly("PWON");
+        assertThat(responses.get("MV?")).extracting(Event::asciiValue).containsExactly("MVMAX 98", "MV455");
+        assertThat(responses.get("MU?")).extracting(Event::asciiValue).containsExactly("MUOFF");
+    }
+
+    @Test
+    public void testPipelinedIdenticalRequests() throws Exception {
+        denonAvr192.enablePipelining(5);
+        CompletableFuture<List<Event>> first = denonAvr192.sendAsync("MV?", Condition.size(2), "MV");
+        CompletableFuture<List<Event>> second = denonAvr192.sendAsync("MV?", Condition.size(2), "MV");
+        assertThat(denonAvr192.pendingRequests()).isEqualTo(2);
+
+        // every event belongs to one response only
+        for (String event : new String[]{"MVMAX 98", "MV455", "MVMAX 98", "MV460"}) {
+            denonAvr192.dispatch(Event.create(event.getBytes()));
+        }
+        assertThat(first.get(1, TimeUnit.SECONDS)).extracting(Event::asciiValue).containsExactly("MVMAX 98", "MV455");
+        assertThat(second.get(1, TimeUnit.SECONDS)).extracting(Event::asciiValue).containsExactly("MVMAX 98", "MV460");
+    }
+
+    @Test
+    public void testAsyncRequests() throws Exception {
+        CompletableFuture<String> power = denonAvr192.power().stateAsync();
+        CompletableFuture<String> volume = denonAvr192.masterVolume().getAsync();
+        // not pipelining, the volume request waits for the power response
+        verify(protocol).send(cmd("PW?"));
+        verify(protocol, never()).send(cmd("MV?"));
+        assertThat(power).isNotDone();
+
+        denonAvr192.dispatch(Event.create("PWON".getBytes()));
+        assertThat(power.get(1, TimeUnit.SECONDS)).isEqualTo("ON");
+        verify(protocol).send(cmd("MV?"));
+
+        denonAvr192.dispatch(Event.create("MVMAX 98".getBytes()));
+        assertThat(volume).isNotDone();
+        denonAvr192.dispatch(Event.create("MV455".getBytes()));
+        assertThat(volume.get(1, TimeUnit.SECONDS)).isEqualTo("455");
+    }
+
+    @Test
+    public void testOneWayCommands() throws Exception {
+        CompletableFuture<String> screen = denonAvr192.power().stateAsync();
+        verify(protocol).send(cmd("PW?"));
+
+        // key presses do not wait for the outstanding response
+        denonAvr192.masterVolume().slideUp();
+        denonAvr192.send("NS9A");
+        verify(protocol).send(cmd("MVUP"));
+        verify(protocol).send(cmd("NS9A"));
+        assertThat(screen).isNotDone();
+
+        // and are not taken as response
+        denonAvr192.dispatch(Event.create("PWON".getBytes()));
+        assertThat(screen.get(1, TimeUnit.SECONDS)).isEqualTo("ON");
+
+        CompletableFuture<Void> written = new CompletableFuture<>();
+        when(protocol.reportsWrites()).thenReturn(Boolean.TRUE);
+        when(protocol.sendAsync(cmd("MUON"))).thenReturn(written);
+        CompletableFuture<Void> ack = denonAvr192.sendAsync("MUON");
+        assertThat(ack).isNotDone();
+        written.complete(null);
+        assertThat(ack).isDone();
+    }
+
+    @Test
+    public void testWriteFailureFailsRequest() {
+        CompletableFuture<Void> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new ConnectionException("Communication failure."));
+        when(protocol.reportsWrites()).thenReturn(Boolean.TRUE);
+        when(protocol.sendAsync(cmd("PW?"))).thenReturn(failed.copy());
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> denonAvr192.send("PW?", Condition.size(1)))
+            .isInstanceOf(ConnectionException.class)
+            .isNotInstanceOf(TimeoutException.class)
+            .hasMessage("Communication failure.");
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(5));
+    }
+
+    @Test
+    public void testInterruptedRequest() {
+        Thread.currentThread().interrupt();
+        try {
+            assertThatThrownBy(() -> denonAvr192.send("PW?", Condition.size(1))).isInstanceOf(ConnectionException.class);
+            // the interrupt is not lost
+            assertThat(Thread.interrupted()).isTrue();
+        } finally {
+            Thread.interrupted();
+        }
+
+        // and the request does not block the next one
+        doAnswer(invocationOnMock -> {
+            denonAvr192.dispatch(Event.create("MUOFF".getBytes()));
+            return null;
+        }).when(protocol).send(cmd("MU?"));
+        assertThat(denonAvr192.mute().state()).isEqualTo("OFF");
+    }
+
+    @Test
+    public void testSliderCoalescing() {
+        Map<Command, CompletableFuture<Void>> written = new LinkedHashMap<>();
+        when(protocol.reportsWrites()).thenReturn(Boolean.TRUE);
+        when(protocol.sendAsync(any(Command.class))).thenAnswer(invocationOnMock -> {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            written.put(invocationOnMock.getArgument(0), future);
+            return future;
+        });
+
+        Volume master = denonAvr192.masterVolume();
+        master.set("40");
+        master.set("45");
+        master.slideUp();
+        master.set("50");
+        // only the first value is on its way, the latest replaced the others
+        assertThat(written.keySet()).containsExactly(cmd("MV40"));
+
+        written.get(cmd("MV40")).complete(null);
+        assertThat(written.keySet()).containsExactly(cmd("MV40"), cmd("MV50"));
+
+        // channel volumes coalesce independently
+        denonAvr192.frontLeftVolume().set("50");
+        denonAvr192.centerVolume().set("48");
+        assertThat(written.keySet()).contains(cmd("CVFL 50"), cmd("CVC 48"));
+    }
+
+    @Test
+    public void testStateCache() {
+        denonAvr192.state().setMaxAge(Duration.ofMinutes(1));
+        denonAvr192.dispatch(Event.create("PWON".getBytes()));
+        denonAvr192.dispatch(Event.create("MVMAX 98".getBytes()));
+        denonAvr192.dispatch(Event.create("MV455".getBytes()));
+        denonAvr192.dispatch(Event.create("CVFL 50".getBytes()));
+
+        assertThat(denonAvr192.power().state()).isEqualTo("ON");
+        assertThat(denonAvr192.masterVolume().get()).isEqualTo("455");
+        assertThat(denonAvr192.frontLeftVolume().get()).isEqualTo("50");
+        verify(protocol, never()).send(cmd("PW?"));
+        verify(protocol, never()).send(cmd("MV?"));
+        verify(protocol, never()).send(cmd("CV?"));
+
+        // unknown and invalidated values are queried
+        doAnswer(invocationOnMock -> {
+            denonAvr192.dispatch(Event.create("MUOFF".getBytes()));
+            return null;
+        }).when(protocol).send(cmd("MU?"));
+        assertThat(denonAvr192.mute().state()).isEqualTo("OFF");
+        verify(protocol).send(cmd("MU?"));
+        denonAvr192.power().switchOff();
+        doAnswer(invocationOnMock -> {
+            denonAvr192.dispatch(Event.create("PWSTANDBY".getBytes()));
+            return null;
+        }).when(protocol).send(cmd("PW?"));
+        assertThat(denonAvr192.power().state()).isEqualTo("STANDBY");
+        assertThat(denonAvr192.state().hits()).isEqualTo(3);
+        assertThat(denonAvr192.state().misses()).isEqualTo(2);
+
+        // settings cache their values without the whole prefix, the getters strip the command only
+        denonAvr192.dispatch(Event.create("SIDVD".getBytes()));
+        denonAvr192.dispatch(Event.create("TMANAUTO".getBytes()));
+        assertThat(denonAvr192.input().get()).isEqualTo("DVD");
+        assertThat(denonAvr192.tunerMode().get()).isEqualTo("ANAUTO");
+        assertThat(denonAvr192.state().<String>get(denonAvr192.tunerMode()).map(ReceiverState.Value::value))
+            .contains("AUTO");
+    }
+
+    @Test
+    public void testSyncOnConnect() {
+        Map<String, List<String>> responses = new LinkedHashMap<>();
+        responses.put("PW?", Collections.singletonList("PWON"));
+        responses.put("MV?", Arrays.asList("MV455", "MVMAX 98"));
+        responses.put("CV?", Arrays.asList("CVFL 50", "CVFR 50", "CVC 50", "CVSW 50", "CVSL 50", "CVSR 50",
+            "CVSBL 50", "CVSBR 50", "CVSB 50", "CVFHL 50", "CVFHR 50"));
+        responses.put("MU?", Collections.singletonList("MUOFF"));
+        responses.put("SI?", Collections.singletonList("SICD"));
+        responses.put("SV?", Collections.singletonList("SVDVD"));
+        responses.put("ZM?", Collections.singletonList("ZMON"));
+        responses.put("MS?", Collections.singletonList("MSSTEREO"));
+        responses.put("SLP?", Collections.singletonList("SLPOFF"));
+        responses.put("TMAN?", Collections.singletonList("TMANAUTO"));
+        // the tuner does not answer
+        doAnswer(invocationOnMock -> {
+            Command command = invocationOnMock.getArgument(0);
+            responses.getOrDefault(command.signature(), Collections.emptyList())
+                .forEach(event -> denonAvr192.dispatch(Event.create(event.getBytes())));
+            return null;
+        }).when(protocol).send(any(Command.class));
+
+        StateSnapshot snapshot = denonAvr192.connect(137, Duration.ofMillis(200));
+
+        assertThat(snapshot.isComplete()).isFalse();
+        assertThat(snapshot.missing()).containsExactly(denonAvr192.tunerFrequency(), denonAvr192.tunerPreset());
+        assertThat(snapshot.get(denonAvr192.power())).contains("ON");
+        assertThat(snapshot.get(denonAvr192.masterVolume())).contains("455");
+        assertThat(snapshot.get(denonAvr192.surroundBackVolume())).contains("50");
+        assertThat(snapshot.get(denonAvr192.sleepTimer())).contains("OFF");
+        assertThat(snapshot.values()).hasSize(20);
+        verify(protocol, times(1)).send(cmd("CV?"));
+        assertThat(denonAvr192.getSession().startupTime()).isGreaterThanOrEqualTo(Duration.ofMillis(200));
+    }
+
+    @Test
+    public void testRelevanceFilteredCapture() {
+        denonAvr192.connect(137);
+        doAnswer(invocationOnMock -> {
+            denonAvr192.dispatch(Event.create("NSE0Now Playing".getBytes()));
+            denonAvr192.dispatch(Event.create("MVMAX 98".getBytes()));
+            denonAvr192.dispatch(Event.create("CVFL 50".getBytes()));
+            denonAvr192.dispatch(Event.create("MV455".getBytes()));
+            return null;
+        }).when(protocol).send(cmd("MV?"));
+
+        List<Event> response = denonAvr192.send("MV?", Condition.size(2), "MV");
+        assertThat(response).extracting(Event::asciiValue).containsExactly("MVMAX 98", "MV455");
+        response = denonAvr192.send("MV?", Condition.size(2), "CV", "NS");
+        assertThat(response).extracting(Event::asciiValue).containsExactly("NSE0Now Playing", "CVFL 50");
+        response = denonAvr192.send("MV?", Condition.size(3), "");
+        assertThat(response).extracting(Event::asciiValue).containsExactly("NSE0Now Playing", "MVMAX 98", "CVFL 50");
+        // captures all events by default, as before prefixes could be declared
+        response = denonAvr192.send("MV?", Condition.size(2));
+        assertThat(response).extracting(Event::asciiValue).containsExactly("NSE0Now Playing", "MVMAX 98");
+
+        Stats stats = denonAvr192.getSession().stats();
+        assertThat(stats.responses()).isEqualTo(4);
+        assertThat(stats.capturedEvents()).isEqualTo(9);
+        assertThat(stats.uncapturedEvents()).isEqualTo(3);
+        assertThat(stats.maxResponseSize()).isEqualTo(3);
+    }
+
     @Test
     public void testCorrectInit() {
         assertDispatcherValid();
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2017 Sascha Theves
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.theves.denon4j;
+
+import io.theves.denon4j.AsyncListener.Overflow;
+import io.theves.denon4j.net.Command;
+import io.theves.denon4j.net.Event;
+import io.theves.denon4j.net.Protocol;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Test for publishing events to reactive subscribers.
+ */
+public class EventPublisherTest {
+    private DenonReceiver receiver;
+    private Protocol protocol;
+    private List<Runnable> tasks;
+    private int controls;
+
+    @Before
+    public void setup() {
+        protocol = mock(Protocol.class);
+        receiver = new DenonReceiver(protocol);
+        tasks = new ArrayList<>();
+        controls = receiver.getEventListeners().size();
+    }
+
+    @Test
+    public void testDemand() {
+        EventPublisher publisher = receiver.publisher(2, Overflow.DROP_OLDEST, tasks::add, "MV");
+        Recorder subscriber = new Recorder();
+        publisher.subscribe(subscriber);
+        assertThat(publisher.subscribers()).isEqualTo(1);
+
+        dispatch("MV450", "PWON", "MV455");
+        runTasks();
+        // nothing requested yet
+        assertThat(subscriber.received).isEmpty();
+
+        subscriber.subscription.request(1);
+        runTasks();
+        assertThat(subscriber.received).containsExactly("MV450");
+
+        dispatch("MVMAX 98", "MV460");
+        subscriber.subscription.request(10);
+        runTasks();
+        assertThat(subscriber.received).containsExactly("MV450", "MVMAX 98", "MV460");
+        assertThat(publisher.dropped()).isEqualTo(1);
+
+        publisher.close();
+        runTasks();
+        assertThat(subscriber.completed).isTrue();
+        assertThat(publisher.subscribers()).isZero();
+        assertThat(receiver.getEventListeners()).hasSize(controls);
+    }
+
+    @Test
+    public void testConflateAndCancel() {
+        EventPublisher publisher = receiver.publisher(2, Overflow.CONFLATE, tasks::add);
+        Recorder subscriber = new Recorder();
+        publisher.subscribe(subscriber);
+
+        dispatch("MV450", "MVMAX 98", "MV455", "MV460");
+        subscriber.subscription.request(Long.MAX_VALUE);
+        runTasks();
+        assertThat(subscriber.received).containsExactly("MV450", "MV460");
+
+        subscriber.subscription.cancel();
+        dispatch("MV465");
+        runTasks();
+        assertThat(subscriber.received).hasSize(2);
+        assertThat(receiver.getEventListeners()).hasSize(controls);
+
+        Recorder invalid = new Recorder();
+        publisher.subscribe(invalid);
+        invalid.subscription.request(0);
+        runTasks();
+        assertThat(invalid.error).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testSlowSubscriberDoesNotDelayRequests() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            CountDownLatch blocked = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            Recorder slow = new Recorder() {
+                @Override
+                public void onNext(Event item) {
+                    blocked.countDown();
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    super.onNext(item);
+                }
+            };
+            receiver.publisher(16, Overflow.DROP_OLDEST, executor).subscribe(slow);
+            slow.subscription.request(Long.MAX_VALUE);
+            doAnswer(invocationOnMock -> {
+                dispatch("MVMAX 98", "MV455");
+                return null;
+            }).when(protocol).send(any(Command.class));
+
+            dispatch("NSE0Now Playing");
+            assertThat(blocked.await(1, TimeUnit.SECONDS)).isTrue();
+            long start = System.nanoTime();
+            for (int i = 0; i < 50; i++) {
+                assertThat(receiver.send("MV?", "MV\\d+").asciiValue()).isEqualTo("MV455");
+            }
+            assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1000);
+            // still busy with the first event, the others were dropped from its queue
+            assertThat(slow.received).isEmpty();
+
+            release.countDown();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void dispatch(String... events) {
+        for (String event : events) {
+            receiver.dispatch(Event.create(event.getBytes()));
+        }
+    }
+
+    private void runTasks() {
+        while (!tasks.isEmpty()) {
+            tasks.remove(0).run();
+        }
+    }
+
+    private static class Recorder implements Flow.Subscriber<Event> {
+        final List<String> received = new CopyOnWriteArrayList<>();
+        Flow.Subscription subscription;
+        volatile boolean completed;
+        volatile Throwable error;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(Event item) {
+            received.add(item.asciiValue());
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+}
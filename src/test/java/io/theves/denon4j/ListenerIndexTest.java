@@ -0,0 +1,106 @@
+/*
+ * Copyright 2017 Sascha Theves
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package io.theves.denon4j;
+
+import io.theves.denon4j.net.Event;
+import io.theves.denon4j.net.EventListener;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test for dispatching events by command prefix.
+ */
+public class ListenerIndexTest {
+    private List<String> received;
+    private ListenerIndex index;
+
+    @Before
+    public void setup() {
+        received = new ArrayList<>();
+        index = new ListenerIndex();
+    }
+
+    @Test
+    public void testDispatchByPrefix() {
+        index.add(null, event -> received.add("all:" + event.asciiValue()));
+        index.add("MV", event -> received.add("MV:" + event.asciiValue()));
+        index.add("SLP", event -> received.add("SLP:" + event.asciiValue()));
+        index.add("SI", event -> received.add("SI:" + event.asciiValue()));
+        index.add("TFAN", event -> received.add("TFAN:" + event.asciiValue()));
+        index.add("T", event -> received.add("T:" + event.asciiValue()));
+
+        dispatch("MV455");
+        dispatch("SLP030");
+        dispatch("TFAN105000");
+        dispatch("TPAN01");
+        dispatch("M");
+
+        assertThat(received).containsExactly(
+            "MV:MV455", "all:MV455",
+            "SLP:SLP030", "all:SLP030",
+            "TFAN:TFAN105000", "all:TFAN105000", "T:TFAN105000",
+            "all:TPAN01", "T:TPAN01",
+            "all:M");
+    }
+
+    @Test
+    public void testRemoveAndFailingListener() {
+        EventListener failing = event -> {
+            throw new IllegalStateException("Failure");
+        };
+        EventListener volume = event -> received.add(event.asciiValue());
+        index.add("MV", failing);
+        index.add("MV", volume);
+        dispatch("MV455");
+        assertThat(received).containsExactly("MV455");
+
+        assertThat(index.remove(volume)).isTrue();
+        assertThat(index.remove(volume)).isFalse();
+        dispatch("MV460");
+        assertThat(received).containsExactly("MV455");
+        assertThat(index.listeners()).containsExactly(failing);
+    }
+
+    @Test
+    public void testReentrantRegistration() {
+        ListenerRegistration[] self = new ListenerRegistration[1];
+        self[0] = index.add("PW", event -> {
+            // replaces itself while being notified
+            index.add("PW", next -> received.add("next:" + next.asciiValue()));
+            self[0].remove();
+            received.add("first:" + event.asciiValue());
+        });
+        dispatch("PWON");
+        dispatch("PWSTANDBY");
+        self[0].remove();
+        assertThat(received).containsExactly("first:PWON", "next:PWSTANDBY");
+        assertThat(index.listeners()).hasSize(1);
+    }
+
+    private void dispatch(String event) {
+        index.dispatch(Event.create(event.getBytes()));
+    }
+}
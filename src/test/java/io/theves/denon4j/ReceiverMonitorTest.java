@@ -0,0 +1,134 @@
+/*
+ * Copyright 2017 Sascha Theves
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.theves.denon4j;
+
+import io.theves.denon4j.net.Command;
+import io.theves.denon4j.net.Event;
+import io.theves.denon4j.net.Protocol;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test for monitoring a receiver with JMX.
+ */
+public class ReceiverMonitorTest {
+    private DenonReceiver receiver;
+    private Protocol protocol;
+    private MBeanServer server;
+
+    @Before
+    public void setup() {
+        protocol = mock(Protocol.class);
+        receiver = new DenonReceiver(protocol);
+        server = MBeanServerFactory.newMBeanServer();
+    }
+
+    @Test
+    public void testAttributes() throws Exception {
+        receiver.connect(137);
+        when(protocol.isConnected()).thenReturn(Boolean.TRUE);
+        try (ReceiverMonitor monitor = ReceiverMonitor.register(receiver, "living-room:23", server)) {
+            ObjectName name = new ObjectName("io.theves.denon4j:type=Receiver,name=\"living-room:23\"");
+            assertThat(monitor.getObjectName()).isEqualTo(name);
+            assertThat(server.getAttribute(name, "LastEventAgeMillis")).isEqualTo(-1L);
+
+            receiver.sendAsync("PW?", Condition.size(1), "PW");
+            receiver.sendAsync("MV?", Condition.size(1), "MV");
+            receiver.dispatch(Event.create("MUON".getBytes()));
+
+            assertThat(server.getAttribute(name, "Connected")).isEqualTo(true);
+            assertThat(server.getAttribute(name, "PendingRequests")).isEqualTo(1);
+            assertThat(server.getAttribute(name, "QueuedRequests")).isEqualTo(1);
+            assertThat(server.getAttribute(name, "EventCount")).isEqualTo(1L);
+            assertThat((Long) server.getAttribute(name, "LastEventAgeMillis")).isBetween(0L, 1000L);
+            assertThat((Double) server.getAttribute(name, "EventRate")).isPositive();
+            assertThat((Integer) server.getAttribute(name, "ListenerCount"))
+                .isEqualTo(receiver.getEventListeners().size());
+
+            receiver.dispatch(Event.create("PWON".getBytes()));
+            assertThat((Double) server.getAttribute(name, "LatencyP99Millis")).isGreaterThanOrEqualTo(0.0);
+            assertThat(server.getAttribute(name, "PendingRequests")).isEqualTo(1);
+            assertThat(server.getAttribute(name, "QueuedRequests")).isEqualTo(0);
+
+            assertThatThrownBy(() -> ReceiverMonitor.register(receiver, "living-room:23", server))
+                .isInstanceOf(IllegalStateException.class);
+        }
+        assertThat(server.queryNames(new ObjectName("io.theves.denon4j:*"), null)).isEmpty();
+    }
+
+    @Test
+    public void testRatesOverFixedWindows() {
+        Stats stats = new Stats();
+        ReceiverMonitor.Rate rate = new ReceiverMonitor.Rate(Stats::events);
+        long window = ReceiverMonitor.RATE_WINDOW_NANOS;
+        stats.incrementEvents();
+        double first = rate.perSecond(stats, 10 * window);
+        assertThat(first).isPositive();
+
+        // every read in the window sees the same rate
+        stats.incrementEvents();
+        assertThat(rate.perSecond(stats, 10 * window + 1)).isEqualTo(first);
+        assertThat(rate.perSecond(stats, 11 * window - 1)).isEqualTo(first);
+
+        // the next window reports the events since the first sample
+        for (int i = 0; i < 3; i++) {
+            stats.incrementEvents();
+        }
+        assertThat(rate.perSecond(stats, 12 * window)).isEqualTo(2.0);
+        assertThat(rate.perSecond(stats, 12 * window + 1)).isEqualTo(2.0);
+        assertThat(rate.perSecond(null, 12 * window)).isZero();
+    }
+
+    @Test
+    public void testOperations() throws Exception {
+        receiver.connect(137);
+        doAnswer(invocationOnMock -> {
+            Command command = invocationOnMock.getArgument(0);
+            if (command.signature().equals("PW?")) {
+                receiver.dispatch(Event.create("PWON".getBytes()));
+            }
+            return null;
+        }).when(protocol).send(any(Command.class));
+        try (ReceiverMonitor monitor = ReceiverMonitor.register(receiver, "kitchen", server)) {
+            for (int i = 0; i < ReceiverMonitor.RECENT_EVENTS + 2; i++) {
+                receiver.dispatch(Event.create(("MV" + (10 + i)).getBytes()));
+            }
+            String[] recent = (String[]) server.invoke(monitor.getObjectName(), "dumpRecentEvents", null, null);
+            assertThat(recent).hasSize(ReceiverMonitor.RECENT_EVENTS);
+            assertThat(recent[0]).endsWith(" MV12");
+            assertThat(recent[recent.length - 1]).endsWith(" MV75");
+
+            String summary = (String) server.invoke(monitor.getObjectName(), "resync", new Object[]{50L},
+                new String[]{long.class.getName()});
+            assertThat(summary).startsWith("1 values").contains("missing: ").contains("Master Volume");
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2017 Sascha Theves
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.theves.denon4j;
+
+import io.theves.denon4j.RequestTimeline.Phase;
+import io.theves.denon4j.net.Command;
+import io.theves.denon4j.net.Event;
+import io.theves.denon4j.net.Protocol;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test for tracing the phases of requests.
+ */
+public class RequestTracerTest {
+    private DenonReceiver receiver;
+    private Protocol protocol;
+
+    @Before
+    public void setup() {
+        protocol = mock(Protocol.class);
+        receiver = new DenonReceiver(protocol);
+        when(protocol.reportsWrites()).thenReturn(Boolean.TRUE);
+        // commands are never written unless answered below
+        when(protocol.sendAsync(any(Command.class))).thenReturn(new CompletableFuture<>());
+        doAnswer(invocationOnMock -> {
+            receiver.sending(invocationOnMock.getArgument(0));
+            CompletableFuture<Void> written = new CompletableFuture<>();
+            // like a transport, the write completes before the receiver answers
+            Thread transport = new Thread(() -> {
+                while (written.getNumberOfDependents() == 0) {
+                    Thread.yield();
+                }
+                written.complete(null);
+                receiver.dispatch(Event.create("MVMAX 98".getBytes()));
+                receiver.dispatch(Event.create("MV455".getBytes()));
+            });
+            transport.start();
+            return written;
+        }).when(protocol).sendAsync(Command.createCommand("MV?"));
+    }
+
+    @Test
+    public void testTimeline() {
+        receiver.tracer().enable(2);
+        assertThat(receiver.masterVolume().get()).isEqualTo("455");
+
+        List<RequestTimeline> timelines = receiver.tracer().timelines();
+        assertThat(timelines).hasSize(1);
+        RequestTimeline timeline = timelines.get(0);
+        assertThat(timeline.command()).isEqualTo(Command.createCommand("MV?"));
+        assertThat(timeline.isCompleted()).isTrue();
+        Duration previous = Duration.ZERO;
+        for (Phase phase : Phase.values()) {
+            assertThat(timeline.elapsed(phase)).isGreaterThanOrEqualTo(previous);
+            previous = timeline.elapsed(phase);
+        }
+        assertThat(timeline.toString()).startsWith("MV? started=").contains(" woken=");
+    }
+
+    @Test
+    public void testPendingRequestAndCapacity() {
+        receiver.tracer().enable(2);
+        receiver.masterVolume().get();
+        receiver.send("PW?", Condition.size(0));
+        CompletableFuture<List<Event>> unanswered = receiver.sendAsync("SI?", Condition.size(1));
+
+        List<RequestTimeline> timelines = receiver.tracer().timelines();
+        assertThat(timelines).extracting(t -> t.command().signature()).containsExactly("PW?", "SI?");
+        // the protocol never wrote the command
+        RequestTimeline pending = timelines.get(1);
+        assertThat(unanswered).isNotDone();
+        assertThat(pending.elapsed(Phase.STARTED)).isNotNull();
+        assertThat(pending.elapsed(Phase.WRITING)).isNull();
+        assertThat(pending.isCompleted()).isFalse();
+        assertThat(pending.toString()).isEqualTo(
+            "SI? started=" + String.format(Locale.ROOT, "%.3fms", pending.elapsed(Phase.STARTED).toNanos() / 1e6) +
+                " writing=- written=- first_event=- fulfilled=- completed=- woken=-");
+    }
+
+    @Test
+    public void testReusedTimeline() {
+        CompletableFuture<Void> written = new CompletableFuture<>();
+        when(protocol.sendAsync(Command.createCommand("SI?"))).thenReturn(written);
+        receiver.enablePipelining(2);
+        receiver.tracer().enable(1);
+        receiver.sendAsync("SI?", Condition.size(1), "SI");
+        RequestTimeline copy = receiver.tracer().timelines().get(0);
+        receiver.sendAsync("PW?", Condition.size(1), "PW");
+
+        // the write of the older request is not marked into the timeline now used by the newer one
+        written.complete(null);
+        List<RequestTimeline> timelines = receiver.tracer().timelines();
+        assertThat(timelines).extracting(t -> t.command().signature()).containsExactly("PW?");
+        assertThat(timelines.get(0).elapsed(Phase.STARTED)).isNotNull();
+        assertThat(timelines.get(0).elapsed(Phase.WRITTEN)).isNull();
+        // copies do not change
+        assertThat(copy.command().signature()).isEqualTo("SI?");
+        assertThat(copy.elapsed(Phase.WRITTEN)).isNull();
+    }
+
+    @Test
+    public void testDisabled() {
+        assertThat(receiver.tracer().isEnabled()).isFalse();
+        receiver.masterVolume().get();
+        assertThat(receiver.tracer().timelines()).isEmpty();
+
+        receiver.tracer().enable(1);
+        receiver.tracer().disable();
+        receiver.masterVolume().get();
+        assertThat(receiver.tracer().timelines()).isEmpty();
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2017 Sascha Theves
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.theves.denon4j;
+
+import io.theves.denon4j.net.Command;
+import io.theves.denon4j.net.Event;
+import io.theves.denon4j.net.Protocol;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Test for the session metrics.
+ */
+public class StatsTest {
+
+    @Test
+    public void testLatencyPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Random random = new Random(137);
+        for (int i = 0; i < 100_000; i++) {
+            // uniform between 0 and 10 ms
+            histogram.record(random.nextInt(10_000_000));
+        }
+        histogram.record(Duration.ofSeconds(3).toNanos());
+
+        Stats.Latency latency = new Stats.Latency(histogram);
+        assertThat(latency.count()).isEqualTo(100_001);
+        assertThat(latency.p50().toNanos()).isCloseTo(5_000_000L, within(350_000L));
+        assertThat(latency.p99().toNanos()).isCloseTo(9_900_000L, within(700_000L));
+        assertThat(latency.percentile(100)).isEqualTo(Duration.ofSeconds(3));
+        assertThat(latency.max()).isEqualTo(Duration.ofSeconds(3));
+        assertThat(new Stats().latency().p999()).isEqualTo(Duration.ZERO);
+    }
+
+    @Test
+    public void testPrefixMetrics() {
+        Protocol protocol = mock(Protocol.class);
+        DenonReceiver receiver = new DenonReceiver(protocol);
+        receiver.connect(137);
+        doAnswer(invocationOnMock -> {
+            receiver.sending(invocationOnMock.getArgument(0));
+            receiver.dispatch(Event.create("MVMAX 98".getBytes()));
+            receiver.dispatch(Event.create("MV455".getBytes()));
+            return null;
+        }).when(protocol).send(Command.createCommand("MV?"));
+        receiver.dispatch(Event.create("PWON".getBytes()));
+        receiver.dispatch(Event.create("@?".getBytes()));
+
+        assertThat(receiver.masterVolume().get()).isEqualTo("455");
+
+        Stats stats = receiver.getSession().stats();
+        RecvContext unanswered = new RecvContext(Command.createCommand("PW?"), Condition.size(1), null);
+        unanswered.complete();
+        stats.response(unanswered);
+        assertThat(stats.events()).isEqualTo(4);
+        assertThat(stats.bytesIn()).isEqualTo(5 + 3 + 9 + 6);
+        assertThat(stats.commands()).isEqualTo(1);
+        assertThat(stats.bytesOut()).isEqualTo(4);
+        assertThat(stats.responses()).isEqualTo(2);
+        assertThat(stats.timeouts()).isEqualTo(1);
+        assertThat(stats.latency().count()).isEqualTo(2);
+
+        Map<String, Stats.PrefixStats> prefixes = stats.prefixes();
+        assertThat(prefixes.keySet()).containsExactly("MV", "PW", "*");
+        assertThat(prefixes.get("MV").eventsIn()).isEqualTo(2);
+        assertThat(prefixes.get("MV").commandsOut()).isEqualTo(1);
+        assertThat(prefixes.get("MV").latency().count()).isEqualTo(1);
+        assertThat(prefixes.get("PW").timeouts()).isEqualTo(1);
+        assertThat(prefixes.get("*").eventsIn()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2017 Sascha Theves
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.theves.denon4j.events;
+
+import io.theves.denon4j.controls.InputSource;
+import io.theves.denon4j.controls.SurroundMode;
+import io.theves.denon4j.net.Event;
+import io.theves.denon4j.net.EventListener;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class EventDecoderTest {
+
+    @Test
+    public void testDecodeVolumes() {
+        assertThat(decode("MV455")).isEqualTo(new DomainEvent.MasterVolume(91));
+        assertThat(decode("MV45")).isEqualTo(new DomainEvent.MasterVolume(90));
+        assertThat(decode("MVMAX 98")).isEqualTo(new DomainEvent.VolumeMax(196));
+        assertThat(decode("MVMAX 985")).isEqualTo(new DomainEvent.VolumeMax(197));
+        assertThat(decode("CVFL 50")).isEqualTo(new DomainEvent.ChannelVolume(Channel.FRONT_LEFT, 100));
+        assertThat(decode("CVSBR 445")).isEqualTo(new DomainEvent.ChannelVolume(Channel.SURROUND_BACK_RIGHT, 89));
+        assertThat(decode("CVC 50")).isEqualTo(new DomainEvent.ChannelVolume(Channel.CENTER, 100));
+
+        assertThat(decode("MV4")).isNull();
+        assertThat(decode("MV457")).isNull();
+        assertThat(decode("MVUP")).isNull();
+        assertThat(decode("CVEND")).isNull();
+        assertThat(decode("CVXX 50")).isNull();
+    }
+
+    @Test
+    public void testDecodeSettings() {
+        assertThat(((DomainEvent.PowerChanged) decode("PWON")).isOn()).isTrue();
+        assertThat(((DomainEvent.PowerChanged) decode("PWSTANDBY")).isOn()).isFalse();
+        assertThat(((DomainEvent.MuteChanged) decode("MUOFF")).isMuted()).isFalse();
+        assertThat(((DomainEvent.InputChanged) decode("SISAT/CBL")).getSource()).isEqualTo(InputSource.SAT_CBL);
+        assertThat(((DomainEvent.InputChanged) decode("SICD")).getSource()).isEqualTo(InputSource.CD);
+        assertThat(((DomainEvent.SurroundModeChanged) decode("MSPURE DIRECT")).getMode())
+            .isEqualTo(SurroundMode.PURE_DIRECT);
+        assertThat(decode("SLPOFF")).isEqualTo(new DomainEvent.SleepTimer(0));
+        assertThat(decode("SLP120")).isEqualTo(new DomainEvent.SleepTimer(120));
+
+        assertThat(decode("PWOFF")).isNull();
+        assertThat(decode("SICDX")).isNull();
+        assertThat(decode("MSDOLBY PL2X")).isNull();
+        assertThat(decode("SLP12")).isNull();
+        assertThat(decode("NSE1Norah Jones")).isNull();
+        assertThat(decode("P")).isNull();
+        assertThat(EventDecoder.decode(Event.create(new byte[]{(byte) 0xC3, (byte) 0xA4, 'X'}))).isNull();
+    }
+
+    @Test
+    public void testListenerSkipsUnknownEvents() {
+        List<DomainEvent> decoded = new ArrayList<>();
+        EventListener listener = EventDecoder.listener(decoded::add);
+        listener.received(event("NSA0Now Playing"));
+        listener.received(event("PWON"));
+        listener.received(event("MV455"));
+        assertThat(decoded).hasSize(2);
+        assertThat(decoded.get(1)).isEqualTo(new DomainEvent.MasterVolume(91));
+    }
+
+    private static DomainEvent decode(String event) {
+        return EventDecoder.decode(event(event));
+    }
+
+    private static Event event(String event) {
+        return Event.create(event.getBytes(US_ASCII));
+    }
+}
@@ -22,6 +22,9 @@ package io.theves.denon4j.internal.net;
 import io.theves.denon4j.net.Event;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
 import static org.assertj.core.api.Assertions.assertThat;
 
 /**
@@ -35,6 +38,22 @@ public class EventParsingTest {
         String msg = "NSE0 Hallo Welt_????";
         Event fromRawData = Event.create(msg.getBytes());
         assertThat(fromRawData).isNotNull();
-        assertThat(fromRawData.getRaw()).isEqualTo(msg.getBytes());
+        assertThat(fromRawData.raw()).isEqualTo(ByteBuffer.wrap(msg.getBytes()));
+    }
+
+    @Test
+    public void testSliceView() {
+        byte[] frame = "xxMV455xx".getBytes(US_ASCII);
+        Event event = Event.create(frame, 2, 5);
+        assertThat(event.length()).isEqualTo(5);
+        assertThat(event.startsWith("MV")).isTrue();
+        assertThat(event.startsWith("MV4555")).isFalse();
+        assertThat(event.startsWith("MVMAX".getBytes(US_ASCII))).isFalse();
+        assertThat(event.asciiValue()).isEqualTo("MV455");
+
+        ByteBuffer raw = event.raw();
+        assertThat(raw.isReadOnly()).isTrue();
+        assertThat(raw.remaining()).isEqualTo(5);
+        assertThat(raw.get(0)).isEqualTo((byte) 'M');
     }
 }
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2017 Sascha Theves
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.theves.denon4j.journal;
+
+import io.theves.denon4j.DenonReceiver;
+import io.theves.denon4j.controls.OsdInfoList;
+import io.theves.denon4j.net.Command;
+import io.theves.denon4j.net.Event;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test for replaying a journal to a receiver.
+ */
+public class JournalReplayTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testReplaysEventsAndAnswersCommands() throws Exception {
+        Path dir = folder.getRoot().toPath();
+        try (Journal journal = Journal.open(dir)) {
+            journal.received(1, event("PWON"));
+            journal.received(1, event("MV455"));
+            journal.received(1, event("MVMAX 98"));
+            journal.received(2, event("PWSTANDBY"));
+            journal.sent(1, Command.createCommand("NSE"));
+            for (int i = 0; i < 9; i++) {
+                journal.received(1, event("NSE" + i + "Line " + i));
+            }
+        }
+
+        JournalReplay replay = new JournalReplay(new JournalReader(dir), 1, JournalReplay.AS_FAST_AS_POSSIBLE);
+        DenonReceiver receiver = new DenonReceiver(replay);
+        List<String> events = new CopyOnWriteArrayList<>();
+        receiver.addListener(event -> events.add(event.asciiValue()));
+        receiver.connect(137);
+        replay.finished().get(5, TimeUnit.SECONDS);
+
+        assertThat(replay.replayed()).isEqualTo(12);
+        assertThat(events).hasSize(12).startsWith("PWON", "MV455", "MVMAX 98", "NSE0Line 0")
+            .endsWith("NSE8Line 8");
+
+        // not recorded, answered with the replayed values
+        assertThat(receiver.masterVolume().get()).isEqualTo("455");
+        awaitSize(events, 14);
+        assertThat(events).endsWith("MV455", "MVMAX 98");
+
+        OsdInfoList display = receiver.netUsb().getDisplay();
+        assertThat(display.getLines()).hasSize(9);
+        assertThat(display.lineAt(8).getDisplayLine()).isEqualTo("Line 8");
+        awaitSize(events, 23);
+
+        receiver.disconnect();
+        assertThat(replay.isConnected()).isFalse();
+    }
+
+    @Test
+    public void testKeepsScaledTiming() throws Exception {
+        Path dir = folder.getRoot().toPath();
+        try (Journal journal = Journal.open(dir)) {
+            journal.received(1, event("PWON"));
+            Thread.sleep(300);
+            journal.received(1, event("PWSTANDBY"));
+        }
+
+        JournalReplay replay = new JournalReplay(new JournalReader(dir), 1, 3);
+        DenonReceiver receiver = new DenonReceiver(replay);
+        long start = System.nanoTime();
+        receiver.connect(137);
+        replay.finished().get(5, TimeUnit.SECONDS);
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertThat(millis).isBetween(95L, 290L);
+        assertThat(replay.replayed()).isEqualTo(2);
+        receiver.disconnect();
+    }
+
+    @Test
+    public void testKeyOf() {
+        assertThat(JournalReplay.keyOf("MV455")).isEqualTo("MV");
+        assertThat(JournalReplay.keyOf("MVMAX 98")).isEqualTo("MVMAX");
+        assertThat(JournalReplay.keyOf("CVFL 50")).isEqualTo("CVFL");
+        assertThat(JournalReplay.keyOf("PWSTANDBY")).isEqualTo("PW");
+        assertThat(JournalReplay.keyOf("SIDVD")).isEqualTo("SI");
+    }
+
+    // listeners are notified after the response completed
+    private static void awaitSize(List<String> events, int size) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (events.size() < size && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertThat(events).hasSize(size);
+    }
+
+    private static Event event(String value) {
+        return Event.create(value.getBytes());
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2017 Sascha Theves
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.theves.denon4j.journal;
+
+import io.theves.denon4j.DenonReceiver;
+import io.theves.denon4j.net.Command;
+import io.theves.denon4j.net.Event;
+import io.theves.denon4j.net.Protocol;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Test for the traffic journal.
+ */
+public class JournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRecordsReceiverTraffic() throws Exception {
+        Path dir = folder.getRoot().toPath();
+        Protocol protocol = mock(Protocol.class);
+        DenonReceiver receiver = new DenonReceiver(protocol);
+        receiver.connect(137);
+        doAnswer(invocationOnMock -> {
+            receiver.sending(invocationOnMock.getArgument(0));
+            receiver.dispatch(Event.create("MV455".getBytes()));
+            return null;
+        }).when(protocol).send(Command.createCommand("MV?"));
+
+        try (Journal journal = Journal.open(dir)) {
+            receiver.dispatch(Event.create("PWON".getBytes()));
+            receiver.setJournal(journal, 7);
+            assertThat(receiver.masterVolume().get()).isEqualTo("455");
+            receiver.setJournal(null, 7);
+            receiver.dispatch(Event.create("PWSTANDBY".getBytes()));
+            assertThat(journal.records()).isEqualTo(2);
+        }
+
+        List<JournalRecord> records = new JournalReader(dir).stream().collect(Collectors.toList());
+        assertThat(records).hasSize(2);
+        assertThat(records.get(0).direction()).isEqualTo(JournalRecord.Direction.OUT);
+        assertThat(records.get(0).command()).isEqualTo(Command.createCommand("MV?"));
+        assertThat(records.get(0).receiverId()).isEqualTo(7);
+        assertThat(records.get(1).direction()).isEqualTo(JournalRecord.Direction.IN);
+        assertThat(records.get(1).event().asciiValue()).isEqualTo("MV455");
+        assertThat(records.get(1).epochNanos()).isGreaterThanOrEqualTo(records.get(0).epochNanos());
+    }
+
+    @Test
+    public void testRotationAndRetention() throws Exception {
+        Path dir = folder.getRoot().toPath();
+        int segmentSize = 128 * 1024;
+        int perSegment = (segmentSize - Journal.SEGMENT_HEADER) / (Journal.RECORD_HEADER + 5);
+        try (Journal journal = Journal.open(dir, segmentSize, 3)) {
+            for (int i = 0; i < perSegment * 5; i++) {
+                journal.received(1, Event.create(String.format("MV%03d", i % 1000).getBytes()));
+            }
+        }
+        JournalReader reader = new JournalReader(dir);
+        assertThat(reader.segments()).hasSize(3);
+        assertThat(reader.segments().get(0).getFileName().toString()).isEqualTo("0000000000000003.journal");
+        assertThat(reader.stream().count()).isEqualTo(perSegment * 3L);
+
+        // a reopened journal continues with the next segment
+        try (Journal journal = Journal.open(dir, segmentSize, 3)) {
+            journal.sent(2, Command.createCommand("PW?"));
+        }
+        reader = new JournalReader(dir);
+        assertThat(reader.segments()).hasSize(3);
+        assertThat(reader.segments().get(2).getFileName().toString()).isEqualTo("0000000000000006.journal");
+        assertThat(new JournalReader(reader.segments().get(2)).stream().map(JournalRecord::asciiValue))
+            .containsExactly("PW?");
+    }
+
+    @Test
+    public void testDropsWhenClosed() {
+        Journal journal = Journal.open(folder.getRoot().toPath());
+        journal.received(1, Event.create("PWON".getBytes()));
+        journal.close();
+        journal.received(1, Event.create("PWSTANDBY".getBytes()));
+
+        assertThat(journal.records()).isEqualTo(1);
+        assertThat(journal.dropped()).isEqualTo(1);
+        assertThat(new JournalReader(journal.directory()).stream().map(JournalRecord::asciiValue))
+            .containsExactly("PWON");
+    }
+}
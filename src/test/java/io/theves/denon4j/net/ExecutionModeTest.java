@@ -0,0 +1,71 @@
+/*
+ * Copyright 2017 Sascha Theves
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.theves.denon4j.net;
+
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.Assume.assumeFalse;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Test for the threads of the execution modes.
+ */
+public class ExecutionModeTest {
+
+    @Test
+    public void testPlatformThreads() throws Exception {
+        assertThat(ExecutionMode.PLATFORM.isSupported()).isTrue();
+        Thread thread = ExecutionMode.PLATFORM.threadFactory("EventReader").newThread(() -> {
+        });
+        assertThat(thread.getName()).isEqualTo("EventReader");
+        assertThat(thread.isDaemon()).isFalse();
+        assertThat(run(ExecutionMode.PLATFORM.threadFactory("EventReader"))).isEqualTo("EventReader");
+    }
+
+    @Test
+    public void testVirtualThreads() throws Exception {
+        assumeTrue("Virtual threads require Java 21", ExecutionMode.VIRTUAL.isSupported());
+        Thread thread = ExecutionMode.VIRTUAL.threadFactory("EventReader").newThread(() -> {
+        });
+        assertThat(thread.getName()).isEqualTo("EventReader");
+        assertThat(thread.isDaemon()).isTrue();
+        assertThat(thread.getClass().getName()).contains("Virtual");
+        assertThat(run(ExecutionMode.VIRTUAL.threadFactory("EventReader"))).isEqualTo("EventReader");
+    }
+
+    @Test
+    public void testVirtualThreadsUnsupported() {
+        assumeFalse("Virtual threads are supported", ExecutionMode.VIRTUAL.isSupported());
+        assertThatThrownBy(() -> ExecutionMode.VIRTUAL.threadFactory("EventReader"))
+            .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    private static String run(ThreadFactory factory) throws Exception {
+        CompletableFuture<String> name = new CompletableFuture<>();
+        factory.newThread(() -> name.complete(Thread.currentThread().getName())).start();
+        return name.get(1, TimeUnit.SECONDS);
+    }
+}
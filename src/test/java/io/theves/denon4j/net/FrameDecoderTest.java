@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017 Sascha Theves
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.theves.denon4j.net;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test for splitting the receiver`s byte stream into events.
+ */
+public class FrameDecoderTest {
+    private List<Event> events;
+    private FrameDecoder decoder;
+
+    @Before
+    public void setup() {
+        events = new ArrayList<>();
+        decoder = new FrameDecoder(events::add);
+    }
+
+    @Test
+    public void testMultipleFramesInOneChunk() {
+        feed("PWON\rMV455\r\rMUOFF\u0000");
+        assertThat(events).extracting(Event::asciiValue).containsExactly("PWON", "MV455", "MUOFF");
+    }
+
+    @Test
+    public void testFrameSplitAcrossChunks() {
+        feed("MV4");
+        feed("55\rMVM");
+        assertThat(events).extracting(Event::asciiValue).containsExactly("MV455");
+        feed("AX 68\r");
+        assertThat(events).extracting(Event::asciiValue).containsExactly("MV455", "MVMAX 68");
+    }
+
+    @Test
+    public void testFrameLongerThan135Bytes() {
+        StringBuilder line = new StringBuilder("NSE1");
+        for (int i = 0; i < 60; i++) {
+            line.append("Mö");
+        }
+        byte[] bytes = (line + "\r").getBytes(UTF_8);
+        decoder.decode(bytes, 0, 100);
+        decoder.decode(bytes, 100, bytes.length - 100);
+        assertThat(events).hasSize(1);
+        assertThat(events.get(0).decode(0, UTF_8)).isEqualTo(line.toString());
+    }
+
+    @Test
+    public void testOversizedFrameIsDiscarded() {
+        byte[] garbage = new byte[FrameDecoder.MAX_FRAME_SIZE];
+        Arrays.fill(garbage, (byte) 'X');
+        decoder.decode(garbage, 0, garbage.length);
+        decoder.decode(garbage, 0, garbage.length);
+        feed("\rPWON\r");
+        assertThat(events).extracting(Event::asciiValue).containsExactly("PWON");
+    }
+
+    private void feed(String chunk) {
+        byte[] bytes = chunk.getBytes(US_ASCII);
+        decoder.decode(bytes, 0, bytes.length);
+    }
+}
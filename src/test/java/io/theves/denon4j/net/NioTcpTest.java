@@ -0,0 +1,167 @@
+/*
+ * Copyright 2017 Sascha Theves
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.theves.denon4j.net;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test for the selector based protocol against a loopback server.
+ */
+public class NioTcpTest {
+    private NioTransport transport;
+    private ServerSocketChannel server;
+    private Protocol protocol;
+    private SocketChannel peer;
+    private final BlockingQueue<String> events = new LinkedBlockingQueue<>();
+    private final List<String> sending = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void setup() throws IOException {
+        transport = new NioTransport(1);
+        server = ServerSocketChannel.open().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        protocol = Protocol.tcp(InetAddress.getLoopbackAddress().getHostAddress(), server.socket().getLocalPort(), transport);
+        protocol.setDispatcher(new EventDispatcher() {
+            @Override
+            public void dispatch(Event event) {
+                events.add(event.asciiValue());
+            }
+
+            @Override
+            public void sending(Command command) {
+                sending.add(command.signature());
+            }
+        });
+        protocol.establishConnection(1000);
+        peer = server.accept();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        protocol.disconnect();
+        peer.close();
+        server.close();
+        transport.close();
+    }
+
+    @Test
+    public void testConnectAndDisconnect() throws Exception {
+        assertThat(protocol.isConnected()).isTrue();
+        assertThatThrownBy(() -> protocol.establishConnection(1000)).isInstanceOf(ConnectException.class);
+
+        protocol.disconnect();
+        assertThat(protocol.isConnected()).isFalse();
+        assertThat(peer.read(ByteBuffer.allocate(16))).isEqualTo(-1);
+        assertThatThrownBy(() -> protocol.send(Command.createCommand("PW?"))).isInstanceOf(ConnectionException.class);
+    }
+
+    @Test
+    public void testFrameSplitAcrossReads() throws Exception {
+        write("PWO");
+        assertThat(events.poll(100, TimeUnit.MILLISECONDS)).isNull();
+        write("N\rMV45");
+        assertThat(events.poll(1, TimeUnit.SECONDS)).isEqualTo("PWON");
+        write("5\r");
+        assertThat(events.poll(1, TimeUnit.SECONDS)).isEqualTo("MV455");
+    }
+
+    @Test
+    public void testWritesInOrderAndPaced() throws Exception {
+        protocol.setCommandInterval(Duration.ofMillis(50));
+        List<Long> writtenAt = new CopyOnWriteArrayList<>();
+        List<CompletableFuture<Void>> written = new ArrayList<>();
+        for (String command : new String[]{"PW?", "MV?", "SI?"}) {
+            written.add(protocol.sendAsync(Command.createCommand(command))
+                .thenRun(() -> writtenAt.add(System.nanoTime())));
+        }
+        CompletableFuture.allOf(written.toArray(new CompletableFuture<?>[0])).get(1, TimeUnit.SECONDS);
+
+        assertThat(read(12)).isEqualTo("PW?\rMV?\rSI?\r");
+        assertThat(sending).containsExactly("PW?", "MV?", "SI?");
+        assertThat(writtenAt.get(2) - writtenAt.get(0)).isGreaterThanOrEqualTo(Duration.ofMillis(95).toNanos());
+        assertThat(protocol.outboundStats().sent()).isEqualTo(3);
+    }
+
+    @Test
+    public void testPeerClose() throws Exception {
+        peer.close();
+        await(() -> !protocol.isConnected());
+        assertThatThrownBy(() -> protocol.send(Command.createCommand("PW?"))).isInstanceOf(ConnectionException.class);
+    }
+
+    @Test
+    public void testCloseFailsPendingWrites() throws Exception {
+        protocol.setCommandInterval(Duration.ZERO);
+        // the peer does not read, the batch stays partly written once the socket buffers are full
+        String parameter = new String(new char[64 * 1024]).replace('\0', '0');
+        List<CompletableFuture<Void>> written = new ArrayList<>();
+        for (int i = 0; i < 256; i++) {
+            written.add(protocol.sendAsync(Command.createCommand("NS", parameter)));
+        }
+        await(() -> !sending.isEmpty());
+        assertThat(written.get(written.size() - 1)).isNotDone();
+
+        protocol.disconnect();
+        CompletableFuture<Void> all = CompletableFuture.allOf(written.toArray(new CompletableFuture<?>[0]));
+        await(all::isDone);
+        assertThat(all).isCompletedExceptionally();
+    }
+
+    private void write(String value) throws IOException {
+        peer.write(ByteBuffer.wrap(value.getBytes(US_ASCII)));
+    }
+
+    private String read(int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining() && peer.read(buffer) >= 0) {
+            // until complete
+        }
+        return new String(buffer.array(), 0, buffer.position(), US_ASCII);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+}
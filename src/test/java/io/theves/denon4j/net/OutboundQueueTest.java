@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017 Sascha Theves
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.theves.denon4j.net;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test for pacing outbound commands.
+ */
+public class OutboundQueueTest {
+
+    @Test
+    public void testPacedOneCommandPerInterval() {
+        OutboundQueue queue = new OutboundQueue();
+        queue.setInterval(Duration.ofMillis(50));
+        CompletableFuture<Void> first = queue.add(Command.createCommand("MV50")).written;
+        queue.add(Command.createCommand("MUON"));
+
+        long now = System.nanoTime();
+        List<OutboundQueue.Entry> batch = queue.poll(now);
+        assertThat(batch).hasSize(1);
+        assertThat(batch.get(0).command.signature()).isEqualTo("MV50");
+        assertThat(first).isNotDone();
+
+        queue.written(batch);
+        assertThat(first).isCompleted();
+        assertThat(queue.delayNanos(System.nanoTime())).isPositive();
+        assertThat(queue.poll(System.nanoTime())).isEmpty();
+        assertThat(queue.poll(System.nanoTime() + Duration.ofMillis(50).toNanos())).hasSize(1);
+        assertThat(queue.stats().sent()).isEqualTo(1);
+    }
+
+    @Test
+    public void testCoalescedWithoutInterval() {
+        OutboundQueue queue = new OutboundQueue();
+        queue.setInterval(Duration.ZERO);
+        queue.add(Command.createCommand("MV50"));
+        queue.add(Command.createCommand("MUON"));
+        queue.add(Command.createCommand("PWON"));
+        assertThat(queue.stats().queueDepth()).isEqualTo(3);
+
+        List<OutboundQueue.Entry> batch = queue.poll(System.nanoTime());
+        assertThat(batch).hasSize(3);
+        queue.written(batch);
+        assertThat(queue.delayNanos(System.nanoTime())).isEqualTo(-1);
+        assertThat(queue.stats().queueDepth()).isZero();
+        assertThat(queue.stats().sent()).isEqualTo(3);
+    }
+
+    @Test
+    public void testFailCompletesQueuedCommands() {
+        OutboundQueue queue = new OutboundQueue();
+        CompletableFuture<Void> written = queue.add(Command.createCommand("MV50")).written;
+        queue.fail(Collections.emptyList(), new ConnectionException("Disconnected."));
+        assertThat(written).isCompletedExceptionally();
+
+        // until opened again
+        assertThat(queue.add(Command.createCommand("MUON")).written).isCompletedExceptionally();
+        assertThat(queue.stats().queueDepth()).isZero();
+        queue.open();
+        assertThat(queue.add(Command.createCommand("MUON")).written).isNotDone();
+        assertThat(queue.stats().queueDepth()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2017 Sascha Theves
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.theves.denon4j.net;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test for the thread per connection protocol against a loopback server.
+ */
+public class TcpTest {
+    private ServerSocket server;
+    private Protocol protocol;
+    private Socket peer;
+
+    @Before
+    public void setup() throws IOException {
+        server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        protocol = Protocol.tcp(InetAddress.getLoopbackAddress().getHostAddress(), server.getLocalPort());
+        protocol.setDispatcher(event -> {
+        });
+        protocol.establishConnection(1000);
+        peer = server.accept();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        protocol.disconnect();
+        peer.close();
+        server.close();
+    }
+
+    @Test
+    public void testSendAfterDisconnect() throws Exception {
+        CompletableFuture<Void> written = protocol.sendAsync(Command.createCommand("PW?"));
+        written.get(1, TimeUnit.SECONDS);
+        assertThat(protocol.isConnected()).isTrue();
+
+        protocol.disconnect();
+        assertThat(protocol.isConnected()).isFalse();
+        assertThatThrownBy(() -> protocol.send(Command.createCommand("MV?"))).isInstanceOf(ConnectionException.class);
+        assertThatThrownBy(() -> protocol.sendAsync(Command.createCommand("MV?")))
+            .isInstanceOf(ConnectionException.class);
+    }
+}